@@ -5,9 +5,7 @@ import src.Game;
 import src.GameVersion;
 import src.Item.ItemEventCode;
 import src.Item.ItemEventListener;
-
-import java.util.Timer;
-import java.util.TimerTask;
+import src.utility.GameClock;
 
 /**
  * Monsters chase PacMan down, responding to the items he consumes. Classes that inherit from Monster
@@ -20,6 +18,10 @@ public abstract class Monster extends Entity implements ItemEventListener {
     private boolean isFurious= false;
     private boolean isFrozen = false;
 
+    // Ticks of the game clock on which the monster stops being frozen or furious
+    private int frozenUntilTick = 0;
+    private int furiousUntilTick = 0;
+
     /**
      * Constructs a Monster to be used in the provided game, with a MonsterType
      * (Only because GameCallBack requires it)
@@ -122,39 +124,40 @@ public abstract class Monster extends Entity implements ItemEventListener {
     }
 
     /**
-     * Sets the monster's state to Frozen for a period of time
+     * Sets the monster's state to Frozen for a period of game time.
+     * Freezing an already frozen monster only extends the freeze.
      * @param seconds number of seconds to stay frozen
      */
     protected void setStateFrozen(int seconds) {
+        GameClock clock = game.getClock();
+        int ticks = clock.secondsToTicks(seconds);
         this.isFrozen = true;
-        Timer timer = new Timer(); // Instantiate Timer Object
-        int SECOND_TO_MILLISECONDS = 1000;
-        final Monster monster = this;
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                monster.isFrozen = false;
-            }
-        }, seconds * SECOND_TO_MILLISECONDS);
+        this.frozenUntilTick = Math.max(frozenUntilTick, clock.getTick() + ticks);
+        clock.schedule(ticks, () -> {
+            if (clock.getTick() >= frozenUntilTick)
+                isFrozen = false;
+        });
     }
 
     /**
-     * Sets th monster's state to Furious for a period of time
+     * Sets th monster's state to Furious for a period of game time.
+     * Making an already furious monster furious only extends its fury.
      * @param seconds number of seconds to stay furious
      */
     protected void setStateFurious(int seconds) {
+        GameClock clock = game.getClock();
+        int ticks = clock.secondsToTicks(seconds);
         this.isFurious = true;
-        Timer timer = new Timer(); // Instantiate Timer Object
-        int SECOND_TO_MILLISECONDS = 1000;
-        final Monster monster = this;
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                monster.isFurious = false;
-            }
-        }, seconds * SECOND_TO_MILLISECONDS);
+        this.furiousUntilTick = Math.max(furiousUntilTick, clock.getTick() + ticks);
+        clock.schedule(ticks, () -> {
+            if (clock.getTick() >= furiousUntilTick)
+                isFurious = false;
+        });
+    }
+    public void setStatePause() {
+        this.isFrozen = true;
+        this.frozenUntilTick = Integer.MAX_VALUE;
     }
-    public void setStatePause() { this.isFrozen = true; }
     public MonsterType getType() { return type; }
     public boolean isFurious() { return isFurious; }
 }
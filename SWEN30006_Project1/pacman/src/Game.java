@@ -5,6 +5,7 @@ package src;
 import ch.aplu.jgamegrid.*;
 import src.Entity.*;
 import src.utility.GameCallback;
+import src.utility.GameClock;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -21,6 +22,7 @@ public class Game
 {
   private static final String GAME_TITLE = "[PacMan in the Multiverse]";
   private static final int SLOW_DOWN_FACTOR = 3;
+  private static final int END_OF_GAME_DELAY = 120;
   private PacManGameGrid gameGrid;
   private PacActor pacActor;
   private GameCallback gameCallback;
@@ -28,9 +30,17 @@ public class Game
   private ArrayList<Monster> activeMonsters;
   private GameVersion version = GameVersion.SIMPLE;
   private boolean isRunning = false;
+  private int maxPillsAndItems;
+
+  // Set on the GameGrid's thread once Pacman dies or collects everything. Guarded by this
+  private boolean isGameOver = false;
+
+  // Advanced once per simulation cycle, for timed changes to the entities' states
+  private GameClock clock;
 
   /**
-   * Constructs a game, using the properties provided.
+   * Constructs a game, using the properties provided. The "Game.speed" property sets how
+   * many times faster than real time to play, or "max" to play as fast as possible.
    * @param gameCallback  Used for testing and logging
    * @param properties Used for initialising the game-state
    */
@@ -45,7 +55,10 @@ public class Game
     }
 
     // Construct game-related state
+    clock = new GameClock(GameClock.parseSpeed(properties.getProperty("Game.speed"), 1));
     gameGrid = new PacManGameGrid();
+    gameGrid.addActListener(clock::advance);
+    gameGrid.addActListener(this::checkEndOfGame);
     pacActor = new PacActor(this);
 
     if (version == GameVersion.SIMPLE) {
@@ -97,39 +110,35 @@ public class Game
     if (isRunning) return;
     else isRunning = true;
 
-    // Render initial frame and start the game
-    gameGrid.drawGrid();
-    gameGrid.setSimulationPeriod(100);
-    gameGrid.setTitle(GAME_TITLE);
-    gameGrid.doRun();
-    gameGrid.show();
-
-    // Run the start methods for all the entities
+    // Run the start methods for all the entities, before the clock starts
     pacActor.start();
     for (Monster monster : monsterArray) {
       monster.start();
     }
 
-    int maxPillsAndItems =
+    maxPillsAndItems =
             gameGrid.getPills().size() +
             gameGrid.getGold().size();
 
-    // Loop to look for collision in the application thread
-    // This makes it improbable that we miss a hit
-    while(pacActor.isAlive()) {
+    // Render initial frame and start the game
+    gameGrid.drawGrid();
+    gameGrid.setSimulationPeriod(clock.getSimulationPeriod());
+    gameGrid.setTitle(GAME_TITLE);
+    gameGrid.doRun();
+    gameGrid.show();
 
-      // If Pacman collects all the pills the game ends
-      if(pacActor.getNbPills() >= maxPillsAndItems) {
-        break;
+    // Wait for the game thread to end the game, then let the game run on for the end of game
+    // delay, in game time
+    try {
+      synchronized (this) {
+        while (!isGameOver) {
+          wait();
+        }
       }
-
-      for (Monster monster : activeMonsters) {
-        if (monster.detectCollision(pacActor))
-          pacActor.confirmKill(monster);
-      }
-      gameGrid.delay(10);
+      clock.awaitTicks(clock.millisToTicks(END_OF_GAME_DELAY), gameGrid::isPaused);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
-    gameGrid.delay(120);
 
     // Once game is over we pause all the monsters
     for (Monster monster : monsterArray) {
@@ -149,6 +158,26 @@ public class Game
     gameGrid.doPause();
   }
 
+  /**
+   * Looks for collisions once per simulation cycle, on the GameGrid's thread, so no hit is missed
+   * however fast the game runs. Ends the game if Pacman has died or collected all the pills and gold,
+   * waking up run()
+   */
+  private synchronized void checkEndOfGame() {
+    if (isGameOver) return;
+
+    if (pacActor.getNbPills() < maxPillsAndItems) {
+      for (Monster monster : activeMonsters) {
+        if (monster.detectCollision(pacActor))
+          pacActor.confirmKill(monster);
+      }
+    }
+    if (!pacActor.isAlive() || pacActor.getNbPills() >= maxPillsAndItems) {
+      isGameOver = true;
+      notifyAll();
+    }
+  }
+
   /**
    * Parse information about starting entity locations into usable data, and add entities to
    * the game grid accordingly.
@@ -215,5 +244,6 @@ public class Game
   public GameCallback getGameCallback() { return gameCallback; }
   public PacManGameGrid getGameGrid() { return gameGrid; }
   public GameVersion getGameVersion() { return version; }
+  public GameClock getClock() { return clock; }
   public String getGameTitle() { return GAME_TITLE; };
 }
@@ -0,0 +1,127 @@
+package src.utility;
+
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.function.BooleanSupplier;
+
+/**
+ * GameClock keeps a game's logical time, which the monsters' timed states read instead of the wall
+ * clock. The GameGrid advances the clock one tick of TICK_MILLIS per simulation cycle, and the speed
+ * only sets the GameGrid's simulation period, so a timed state lasts the same number of cycles at
+ * any speed. Tasks can be scheduled to run once a number of ticks have passed. They run on the
+ * GameGrid's thread rather than each needing a Timer thread, and tasks due on the same tick run in
+ * the order they were scheduled.
+ */
+public class GameClock {
+    public static final int TICK_MILLIS = 100;
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+    private static final int PAUSE_CHECK_MILLIS = 10;
+    private final double speed;
+
+    // Tasks waiting for their tick. Guarded by this, along with tick and nbScheduled
+    private final PriorityQueue<ScheduledTask> tasks = new PriorityQueue<ScheduledTask>();
+    private int tick = 0;
+    private long nbScheduled = 0;
+
+    /**
+     * Constructs a GameClock at tick 0
+     * @param speed how many times faster than real time to run, or AS_FAST_AS_POSSIBLE
+     */
+    public GameClock(double speed) {
+        if (!(speed > 0))
+            throw new IllegalArgumentException("Game speed must be positive: " + speed);
+        this.speed = speed;
+    }
+
+    /**
+     * Parses a speed, as given in properties
+     * @param value a multiplier such as "2" or "0.5", or "max" for as fast as possible. If null, the
+     *              default speed is used
+     * @param defaultSpeed speed to use if no value is given
+     * @return the speed
+     */
+    public static double parseSpeed(String value, double defaultSpeed) {
+        if (value == null || value.isBlank()) return defaultSpeed;
+        if (value.trim().equalsIgnoreCase("max")) return AS_FAST_AS_POSSIBLE;
+        return Double.parseDouble(value.trim());
+    }
+
+    /**
+     * Moves on to the next tick, running every task scheduled for it
+     */
+    public void advance() {
+        ArrayList<Runnable> dueTasks = new ArrayList<Runnable>();
+        synchronized (this) {
+            tick++;
+            while (!tasks.isEmpty() && tasks.peek().deadline <= tick) {
+                dueTasks.add(tasks.poll().task);
+            }
+        }
+
+        // Tasks are run without the lock, so they can schedule more tasks
+        for (Runnable task : dueTasks) {
+            task.run();
+        }
+    }
+
+    /**
+     * Runs a task once a number of ticks have passed
+     * @param ticks number of ticks to wait
+     * @param task task to run
+     */
+    public synchronized void schedule(int ticks, Runnable task) {
+        tasks.add(new ScheduledTask(tick + ticks, nbScheduled++, task));
+    }
+
+    /**
+     * Waits for a number of ticks to pass, while something else advances the clock. Stops waiting
+     * early if the clock is paused, since the ticks may then never come
+     * @param ticks number of ticks to wait
+     * @param isPaused checked every PAUSE_CHECK_MILLIS while waiting, such as a GameGrid's isPaused
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitTicks(int ticks, BooleanSupplier isPaused) throws InterruptedException {
+        Object lock = new Object();
+        boolean[] isDone = { false };
+        schedule(ticks, () -> {
+            synchronized (lock) {
+                isDone[0] = true;
+                lock.notifyAll();
+            }
+        });
+        synchronized (lock) {
+            while (!isDone[0] && !isPaused.getAsBoolean()) {
+                lock.wait(PAUSE_CHECK_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return real time between ticks in milliseconds, for a GameGrid's simulation period. At least 1
+     */
+    public int getSimulationPeriod() {
+        return (int) Math.max(1, Math.round(TICK_MILLIS / speed));
+    }
+
+    public int secondsToTicks(int seconds) { return seconds * 1000 / TICK_MILLIS; }
+    public int millisToTicks(int millis) { return millis / TICK_MILLIS; }
+    public synchronized int getTick() { return tick; }
+
+    private static class ScheduledTask implements Comparable<ScheduledTask> {
+        private final int deadline;
+        private final long order;
+        private final Runnable task;
+
+        private ScheduledTask(int deadline, long order, Runnable task) {
+            this.deadline = deadline;
+            this.order = order;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            if (deadline != other.deadline) return Integer.compare(deadline, other.deadline);
+            return Long.compare(order, other.order);
+        }
+    }
+}
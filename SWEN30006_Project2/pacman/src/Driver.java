@@ -1,9 +1,15 @@
+import gamemap.BatchRunner;
 import matachi.mapeditor.editor.Controller;
 
+import java.util.Arrays;
+
 public class Driver {
 	public static void main(String[] args) {
 
-		if (args.length == 1) {
+		// Test game folders without the editor
+		if (args.length > 0 && args[0].equals("-batch")) {
+			BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+		} else if (args.length == 1) {
 			new Controller(args[0]);
 		} else {
 			new Controller();
@@ -0,0 +1,92 @@
+package gamemap;
+
+import logger.EditorErrorCallback;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchRunner validates and plays game folders without the map editor, as headless games, and prints
+ * a summary of each level as tab separated values:
+ * <pre>
+ *     folder  level  result  ticks  score  playMillis  validationMillis
+ * </pre>
+ * where result is one of WON, LOST, INVALID or SKIPPED. A folder that isn't valid as a whole gets a
+ * single INVALID line with "-" as its level. Errors are written to the editor error log as usual.
+ * The exit code is 0 if every folder was valid and won, 1 if any folder or level was INVALID, 3 if every
+ * folder was valid but a level was LOST, and 2 if the arguments are wrong.
+ */
+public class BatchRunner {
+    private static final String DEFAULT_PROPERTIES_PATH = "pacman/properties/test.properties";
+    private static final String SEPARATOR = "\t";
+    private static final int EXIT_INVALID = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final int EXIT_LOST = 3;
+
+    /**
+     * @param args [-p properties] [-w workers] folder...
+     */
+    public static void main(String[] args) {
+
+        // Never open a window, even if there's a display
+        System.setProperty("java.awt.headless", "true");
+
+        String propertiesPath = DEFAULT_PROPERTIES_PATH;
+        int nbWorkers = 1;
+        List<File> gameFolders = new ArrayList<File>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-p" -> propertiesPath = args[++i];
+                    case "-w" -> nbWorkers = Integer.parseInt(args[++i]);
+                    default -> gameFolders.add(new File(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            gameFolders.clear();
+        }
+        if (gameFolders.isEmpty()) {
+            System.err.println("Usage: BatchRunner [-p properties] [-w workers] <game folder>...");
+            System.exit(EXIT_USAGE);
+        }
+
+        System.out.println(String.join(SEPARATOR,
+                "folder", "level", "result", "ticks", "score", "playMillis", "validationMillis"));
+        EditorErrorCallback editorErrorCallback = new EditorErrorCallback();
+        boolean areValidFolders = true;
+        boolean isAnyLevelLost = false;
+        for (File gameFolder : gameFolders) {
+            GameRunner gameRunner = new GameRunner(gameFolder, editorErrorCallback, propertiesPath);
+            gameRunner.setNbWorkers(nbWorkers);
+            gameRunner.setHeadless(true);
+
+            if (gameRunner.validateGame()) {
+                gameRunner.testGame();
+            } else {
+                areValidFolders = false;
+            }
+            if (gameRunner.getLevelReports().isEmpty()) {
+                System.out.println(String.join(SEPARATOR, gameFolder.getPath(), "-",
+                        LevelReport.Result.INVALID.name(), "0", "0", "0", "0"));
+            }
+            for (LevelReport report : gameRunner.getLevelReports()) {
+                isAnyLevelLost |= report.getResult() == LevelReport.Result.LOST;
+                System.out.println(String.join(SEPARATOR,
+                        gameFolder.getPath(),
+                        report.getFile().getName(),
+                        report.getResult().name(),
+                        Integer.toString(report.getTicks()),
+                        Integer.toString(report.getScore()),
+                        Long.toString(report.getPlayTime() / 1000000),
+                        Long.toString(report.getValidationTime() / 1000000)));
+            }
+        }
+        editorErrorCallback.close();
+
+        if (!areValidFolders) {
+            System.exit(EXIT_INVALID);
+        }
+        System.exit(isAnyLevelLost ? EXIT_LOST : 0);
+    }
+}
@@ -0,0 +1,13 @@
+package gamemap;
+
+import pacman.Entity.Entity;
+
+public interface CollisionListener {
+
+    /**
+     * CollisionListeners respond to an Entity moving onto a space that another Entity is already on
+     * @param mover Entity that moved, at its location after any teleport
+     * @param occupant Entity that was already on the space
+     */
+    void onCollision(Entity mover, Entity occupant);
+}
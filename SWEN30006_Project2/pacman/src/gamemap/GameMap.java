@@ -4,47 +4,92 @@ import ch.aplu.jgamegrid.Location;
 import pacman.Entity.Entity;
 import pacman.Item.*;
 
+import java.awt.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Game Map contains the necessary information so that a game can be ran. Can only be created by
- * a GameMapValidator.
+ * a GameMapValidator. Cells are identified by their index (y * width + x), and what is known about
+ * each cell is kept in arrays indexed by cell. Spaces are views onto a single cell. The entities
+ * on each cell can be changed from several threads at once, so entities can be moved in parallel.
  */
 public class GameMap {
     private static final int CELL_SIZE = 40;
-    private Space spaceMap[][];
+    static final int NB_NEIGHBOURS = 4;
+    public static final int NO_CELL = -1;
     private int mapWidth;
     private int mapHeight;
+
+    // Cell store
+    private final BitSet walkableCells;
+    private final SpaceOccupier[] occupiers;
+    private final Color[] tileColours;
+
+    // Neighbours of each cell in the order north, east, south, west, or NO_CELL off the map
+    private final int[] neighbourCells;
+
+    // Entities currently standing on each cell, or null for none. The arrays are never changed,
+    // only swapped for a new one, so a cell's occupants can be read while others move
+    private final AtomicReferenceArray<Entity[]> occupants;
+
     private ItemHandler goldHandler;
     private ItemHandler iceHandler;
     private ItemHandler pillHandler;
     private Location pacStart;
     private ArrayList<Location> tx5StartLocations;
     private ArrayList<Location> trollStartLocations;
+    private NearestItemIndex nearestItemIndex;
+    private ArrayList<CollisionListener> collisionListeners = new ArrayList<>();
 
     /**
-     * A gameMap that is prepared by a gameMapValidator is assumed to be valid
-     * @param spaceMap
+     * A gameMap that is prepared by a gameMapValidator is assumed to be valid. Every cell
+     * starts out as an empty, walkable path until it is set by setCell()
      * @param mapWidth
      * @param mapHeight
      */
-    protected GameMap(Space[][] spaceMap, int mapWidth, int mapHeight) {
+    protected GameMap(int mapWidth, int mapHeight) {
 
-        this.spaceMap = spaceMap;
         this.mapWidth = mapWidth;
         this.mapHeight = mapHeight;
 
+        int nbCells = mapWidth * mapHeight;
+        walkableCells = new BitSet(nbCells);
+        walkableCells.set(0, nbCells);
+        occupiers = new SpaceOccupier[nbCells];
+        tileColours = new Color[nbCells];
+        occupants = new AtomicReferenceArray<Entity[]>(nbCells);
+        neighbourCells = new int[nbCells * NB_NEIGHBOURS];
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                int offset = toIndex(x, y) * NB_NEIGHBOURS;
+                neighbourCells[offset] = y > 0 ? toIndex(x, y - 1) : NO_CELL;
+                neighbourCells[offset + 1] = x < mapWidth - 1 ? toIndex(x + 1, y) : NO_CELL;
+                neighbourCells[offset + 2] = y < mapHeight - 1 ? toIndex(x, y + 1) : NO_CELL;
+                neighbourCells[offset + 3] = x > 0 ? toIndex(x - 1, y) : NO_CELL;
+            }
+        }
+        Arrays.fill(tileColours, Color.lightGray);
+
         // Some start Locations
         tx5StartLocations = new ArrayList<>();
         trollStartLocations = new ArrayList<>();
 
-        // Items
-        goldHandler = new GoldHandler();
-        iceHandler = new IceHandler();
-        pillHandler = new PillHandler();
+        // Items, which stay empty until a GameMapValidator sets its own handlers
+        goldHandler = new GoldHandler(true);
+        iceHandler = new IceHandler(true);
+        pillHandler = new PillHandler(true);
     }
 
     // These are used by GameMapTester;
+    protected void setCell(int x, int y, SpaceOccupier spaceOccupier, Color tileColour, boolean isWalkable) {
+        int index = toIndex(x, y);
+        occupiers[index] = spaceOccupier;
+        tileColours[index] = tileColour;
+        walkableCells.set(index, isWalkable);
+    }
     protected void setPacStart(Location location) { pacStart = location; }
     protected void setPillHandler(ItemHandler pillHandler) { this.pillHandler = pillHandler; }
     protected void setGoldHandler(ItemHandler goldHandler) { this.goldHandler = goldHandler; }
@@ -62,23 +107,48 @@ public class GameMap {
         GameGrid output = new GameGrid(mapWidth, mapHeight, CELL_SIZE);
         for (int y=0; y<mapHeight; y++) {
             for (int x=0; x<mapWidth; x++) {
-                Space space = spaceMap[y][x];
-                space.placeOnto(output);
+                getSpace(x, y).placeOnto(output);
             }
         }
         return output;
     }
 
+    /**
+     * Places every space's occupier onto the map without creating a game grid.
+     * Used instead of createGameGrid() by headless games
+     */
+    public void placeOccupiers() {
+        for (int y=0; y<mapHeight; y++) {
+            for (int x=0; x<mapWidth; x++) {
+                getSpace(x, y).placeOnto();
+            }
+        }
+    }
+
     public Space getSpace(Location location) {
-        return spaceMap[location.y][location.x];
+        return getSpace(location.x, location.y);
+    }
+    public Space getSpace(int x, int y) {
+        return new Space(this, toIndex(x, y));
+    }
+    public Space getSpace(int index) {
+        return new Space(this, index);
     }
     public boolean isWalkable(Location location) {
-        if (location.x >= 0 && location.x < mapWidth &&
-            location.y >= 0 && location.y < mapHeight) {
-            return getSpace(location).isWalkable();
-        }
-        return false;
+        return isInMap(location) && walkableCells.get(toIndex(location.x, location.y));
     }
+    public boolean isWalkable(int index) { return walkableCells.get(index); }
+    public SpaceOccupier getOccupier(int index) { return occupiers[index]; }
+    public Color getTileColour(int index) { return tileColours[index]; }
+
+    /**
+     * @param index index of the cell
+     * @param slot 0 to 3, for north, east, south and west
+     * @return index of the neighbouring cell, or NO_CELL if it's off the map
+     */
+    public int getNeighbour(int index, int slot) { return neighbourCells[index * NB_NEIGHBOURS + slot]; }
+    public int toIndex(int x, int y) { return y * mapWidth + x; }
+    public Location toLocation(int index) { return new Location(index % mapWidth, index / mapWidth); }
     public Location getPacStart() { return pacStart.clone(); }
     public ArrayList<Location> getTx5StartLocations() { return new ArrayList<>(tx5StartLocations); }
     public ArrayList<Location> getTrollStartLocations() { return new ArrayList<>(trollStartLocations); }
@@ -101,6 +171,23 @@ public class GameMap {
         return allItems;
     }
 
+    /**
+     * Gets the index of pills and gold that haven't been consumed, in the same order as getPills()
+     * followed by getGold(). The index is built the first time it's asked for, so items must already
+     * be placed on the map, and it keeps itself up to date as items are consumed.
+     * @return index of uneaten pills and gold
+     */
+    public NearestItemIndex getNearestItemIndex() {
+        if (nearestItemIndex == null) {
+            nearestItemIndex = new NearestItemIndex(mapWidth, mapHeight);
+            nearestItemIndex.addItems(getPills());
+            nearestItemIndex.addItems(getGold());
+            subscribeToPillHandler(nearestItemIndex);
+            subscribeToGoldHandler(nearestItemIndex);
+        }
+        return nearestItemIndex;
+    }
+
     /**
      * Subscribes an ItemEventListener to the PillHandler
      * @param listener ItemEventListener that responds to pill.consume()
@@ -125,8 +212,96 @@ public class GameMap {
         iceHandler.subscribe(listener);
     }
 
+    /**
+     * Subscribes a CollisionListener to entities moving onto each other
+     * @param listener CollisionListener that responds to collisions
+     */
+    public void subscribeToCollisions(CollisionListener listener) {
+        collisionListeners.add(listener);
+    }
+
+    /**
+     * Puts an Entity on the space at its current location, so that moveTo() can report
+     * collisions with it
+     * @param e Entity to place
+     */
+    public void placeEntity(Entity e) {
+        Location location = e.getLocation();
+        if (isInMap(location))
+            addOccupant(toIndex(location.x, location.y), e);
+    }
+
+    /**
+     * Moves an Entity onto the given location, letting the space interact with it. Collisions are
+     * reported where the Entity ends up, with every Entity already standing there. When entities
+     * move one at a time, two entities swapping spaces always collide. Entities on different threads
+     * can move at once, and an Entity arriving collides with whoever was added to the space before it.
+     * @param location location to move to
+     * @param e Entity to move
+     */
     public void moveTo(Location location, Entity e) {
+        Location from = e.getLocation();
+        if (isInMap(from))
+            removeOccupant(toIndex(from.x, from.y), e);
+
         e.setLocation(location);
-        getSpace(location).landedOnBy(e);
+        SpaceOccupier spaceOccupier = occupiers[toIndex(location.x, location.y)];
+        if (spaceOccupier != null)
+            spaceOccupier.interact(e);
+
+        // Portals may have moved the entity on
+        Location to = e.getLocation();
+        if (!isInMap(to))
+            return;
+        int index = toIndex(to.x, to.y);
+        Entity[] cellOccupants = addOccupant(index, e);
+        for (int i = 0; i < cellOccupants.length - 1; i++) {
+            Entity occupant = cellOccupants[i];
+            for (CollisionListener listener : collisionListeners) {
+                listener.onCollision(e, occupant);
+            }
+        }
+    }
+
+    /**
+     * Adds an Entity to the end of a cell's occupants, retrying if another thread changes them first
+     * @return the cell's occupants with the Entity added
+     */
+    private Entity[] addOccupant(int index, Entity e) {
+        while (true) {
+            Entity[] cellOccupants = occupants.get(index);
+            Entity[] added;
+            if (cellOccupants == null) {
+                added = new Entity[] { e };
+            } else {
+                added = Arrays.copyOf(cellOccupants, cellOccupants.length + 1);
+                added[cellOccupants.length] = e;
+            }
+            if (occupants.compareAndSet(index, cellOccupants, added))
+                return added;
+        }
+    }
+
+    private void removeOccupant(int index, Entity e) {
+        while (true) {
+            Entity[] cellOccupants = occupants.get(index);
+            int position = cellOccupants == null ? -1 : Arrays.asList(cellOccupants).indexOf(e);
+            if (position < 0)
+                return;
+
+            Entity[] removed = null;
+            if (cellOccupants.length > 1) {
+                removed = new Entity[cellOccupants.length - 1];
+                System.arraycopy(cellOccupants, 0, removed, 0, position);
+                System.arraycopy(cellOccupants, position + 1, removed, position, removed.length - position);
+            }
+            if (occupants.compareAndSet(index, cellOccupants, removed))
+                return;
+        }
+    }
+
+    public boolean isInMap(Location location) {
+        return location.x >= 0 && location.x < mapWidth &&
+                location.y >= 0 && location.y < mapHeight;
     }
 }
@@ -2,7 +2,7 @@ package gamemap;
 
 import ch.aplu.jgamegrid.Location;
 import logger.EditorErrorCallback;
-import matachi.mapeditor.editor.GridModelLoader;
+import matachi.mapeditor.editor.MapCache;
 import matachi.mapeditor.editor.Tile;
 import matachi.mapeditor.editor.TileManager;
 import matachi.mapeditor.grid.Grid;
@@ -10,7 +10,6 @@ import pacman.Item.GoldHandler;
 import pacman.Item.IceHandler;
 import pacman.Item.ItemHandler;
 import pacman.Item.PillHandler;
-import pacman.utility.HashLocation;
 
 import java.awt.*;
 import java.io.File;
@@ -33,24 +32,53 @@ public class GameMapValidator {
     private ItemHandler pillHandler;
     boolean isValidMap;
     private EditorErrorCallback editorErrorCallback;
+    private final boolean isHeadless;
+
+    // Cells with a pill or gold on them
+    private BitSet itemCells;
+
+    // State of the search for reachable cells
+    private BitSet reachedCells;
+    private int[] queue;
+    private int queueTail;
+    private int nbItemsUnreached;
+
+    // Time taken to load the map and to validate it, in nanoseconds
+    private long loadTime;
+    private long validationTime;
 
     /**
-     * Contructs a GameMapValidator using the given map file
+     * Contructs a GameMapValidator using the given map file. Its items and portals only have
+     * sprites if there is a display to show them on.
      * @param mapFile
      * @param editorErrorCallback
      */
     public GameMapValidator(File mapFile, EditorErrorCallback editorErrorCallback) {
+        this(mapFile, editorErrorCallback, GraphicsEnvironment.isHeadless());
+    }
+
+    /**
+     * Contructs a GameMapValidator using the given map file, for a game that is or isn't headless
+     * @param mapFile
+     * @param editorErrorCallback
+     * @param isHeadless whether the map is for a headless game, whose items and portals have no sprites
+     */
+    public GameMapValidator(File mapFile, EditorErrorCallback editorErrorCallback, boolean isHeadless) {
+        long startTime = System.nanoTime();
+        this.isHeadless = isHeadless;
 
         this.isValidMap = false;
         this.mapFile = mapFile;
         this.editorErrorCallback = editorErrorCallback;
 
-        Grid grid = GridModelLoader.createModel(mapFile);
+        // Maps that have been loaded before are copied rather than parsed again
+        Grid grid = MapCache.getInstance().getModel(mapFile);
         char[][] map = grid.getMap();
         int mapWidth = grid.getWidth();
         int mapHeight = grid.getHeight();
 
-        Space[][] spaceMap = new Space[mapHeight][mapWidth];
+        gameMap = new GameMap(mapWidth, mapHeight);
+        itemCells = new BitSet(mapWidth * mapHeight);
 
         pacLocations = new ArrayList<>();
         pillLocations = new ArrayList<>();
@@ -59,9 +87,9 @@ public class GameMapValidator {
         trollStartLocations = new ArrayList<>();
 
         // Items
-        goldHandler = new GoldHandler();
-        iceHandler = new IceHandler();
-        pillHandler = new PillHandler();
+        goldHandler = new GoldHandler(isHeadless);
+        iceHandler = new IceHandler(isHeadless);
+        pillHandler = new PillHandler(isHeadless);
 
         /// Portals
         ArrayList<Location> whitePortalLocations = new ArrayList<>();
@@ -75,7 +103,7 @@ public class GameMapValidator {
         string2Portal.put("PortalDarkGoldTile", darkGoldPortalLocations);
         string2Portal.put("PortalDarkGrayTile", darkGrayPortalLocations);
 
-        // Construct Space[][] map
+        // Fill in the GameMap's cells
         for (int y=0; y<mapHeight; y++) {
             for (int x=0; x<mapWidth; x++) {
 
@@ -99,10 +127,12 @@ public class GameMapValidator {
                     case "PillTile" -> {
                         spaceOccupier = pillHandler.createItem();
                         pillLocations.add(new Location(x,y));
+                        itemCells.set(gameMap.toIndex(x, y));
                     }
                     case "GoldTile" -> {
                         spaceOccupier = goldHandler.createItem();
                         goldLocations.add(new Location(x,y));
+                        itemCells.set(gameMap.toIndex(x, y));
                     }
                     case "IceTile" -> {
                         spaceOccupier = iceHandler.createItem();
@@ -120,8 +150,8 @@ public class GameMapValidator {
                         portalLocations.add(new Location(x, y));
 
                         if (portalLocations.size() == 2) {
-                            Portal portal1 = new Portal(tile.getFilePath());
-                            Portal portal2 = new Portal(tile.getFilePath());
+                            Portal portal1 = new Portal(tile.getFilePath(), isHeadless);
+                            Portal portal2 = new Portal(tile.getFilePath(), isHeadless);
 
                             int p2x = portalLocations.get(1).x;
                             int p2y = portalLocations.get(1).y;
@@ -129,20 +159,20 @@ public class GameMapValidator {
                             int p1x = portalLocations.get(0).x;
                             int p1y = portalLocations.get(0).y;
 
-                            spaceMap[p2y][p2x] = new Space(p2x, p2y, portal2, tileColour, true);
-                            portal1.link(spaceMap[p2y][p2x]);
+                            gameMap.setCell(p2x, p2y, portal2, tileColour, true);
+                            portal1.link(gameMap.getSpace(p2x, p2y));
 
-                            spaceMap[p1y][p1x] = new Space(p1x, p1y, portal1, tileColour, true);
-                            portal2.link(spaceMap[p1y][p1x]);
+                            gameMap.setCell(p1x, p1y, portal1, tileColour, true);
+                            portal2.link(gameMap.getSpace(p1x, p1y));
                             continue;
                         }
                     }
                 }
-                spaceMap[y][x] = new Space(x, y, spaceOccupier, tileColour, isWalkable);
+                gameMap.setCell(x, y, spaceOccupier, tileColour, isWalkable);
             }
         }
 
-        gameMap = new GameMap(spaceMap, mapWidth, mapHeight);
+        loadTime = System.nanoTime() - startTime;
     }
 
     /**
@@ -150,7 +180,10 @@ public class GameMapValidator {
      * @return true if the map is valid else false
      */
     public boolean validateMap() {
-        return isValidMap = validateMapInternal();
+        long startTime = System.nanoTime();
+        isValidMap = validateMapInternal();
+        validationTime = System.nanoTime() - startTime;
+        return isValidMap;
     }
 
     private boolean validateMapInternal() {
@@ -189,30 +222,16 @@ public class GameMapValidator {
         }
 
         // Check that all pills and gold are reachable
-        ArrayList<Location> reachableLocations = getReachableLocations(pacStart);
+        BitSet reachableCells = getReachableCells(pacStart);
         ArrayList<Location> inaccessablePills = new ArrayList<>();
         for (Location pillLocation : pillLocations) {
-            boolean found = false;
-            for (Location pilllocation : reachableLocations) {
-                if (pilllocation.equals(pillLocation)) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
+            if (!reachableCells.get(gameMap.toIndex(pillLocation.x, pillLocation.y))) {
                 inaccessablePills.add(pillLocation);
             }
         }
         ArrayList<Location> inaccessableGold = new ArrayList<>();
         for (Location goldLocation : goldLocations) {
-            boolean found = false;
-            for (Location location : reachableLocations) {
-                if (location.equals(goldLocation)) {
-                    found = true;
-                    break;
-                }
-            }
-            if (!found) {
+            if (!reachableCells.get(gameMap.toIndex(goldLocation.x, goldLocation.y))) {
                 inaccessableGold.add(goldLocation);
             }
         }
@@ -230,34 +249,40 @@ public class GameMapValidator {
         return pillsAndGoldAreReachable;
     }
 
-    private ArrayList<Location> getReachableLocations(Location start) {
-
-        Queue<Location> queue = new LinkedList<Location>();
-        Set<HashLocation> visitedSet = new HashSet<HashLocation>();
-        ArrayList<Location> visitedList = new ArrayList<Location>();
-
-        visitedSet.add(new HashLocation(start));
-        visitedList.add(start);
-        queue.add(start);
-
-        // Iterate through locations we can visit
-        while (!queue.isEmpty()) {
-            Location current = queue.remove();
-
-            // Search through adjacent locations
-            for (Location neighbour : gameMap.getSpace(current).getNeighboursOnEnter()) {
-
-                // HashLocation is needed because Location doesn't override hashCode() method
-                // that HashSet<>() needs to work properly
-                if (!visitedSet.contains(new HashLocation(neighbour)) && gameMap.isWalkable(neighbour)) {
-                    visitedSet.add(new HashLocation(neighbour));
-                    queue.add(neighbour);
-                    visitedList.add(neighbour);
-                }
-            }
+    /**
+     * Searches out from the start for every cell that can be reached, marking each cell once, so this
+     * takes time linear in the size of the map. The search stops early once every pill and gold has
+     * been reached, as the cells left can't make a difference.
+     * @param start location to search from
+     * @return cells that can be reached, by index
+     */
+    private BitSet getReachableCells(Location start) {
+        int nbCells = gameMap.getMapWidth() * gameMap.getMapHeight();
+        reachedCells = new BitSet(nbCells);
+        queue = new int[nbCells];
+        queueTail = 0;
+        nbItemsUnreached = itemCells.cardinality();
+        reach(gameMap.toIndex(start.x, start.y));
+
+        // Iterate through cells we can visit
+        for (int head = 0; head < queueTail && nbItemsUnreached > 0; head++) {
+            gameMap.getSpace(queue[head]).forEachNeighbourOnEnter(neighbourIndex -> {
+                if (gameMap.isWalkable(neighbourIndex) && !reachedCells.get(neighbourIndex))
+                    reach(neighbourIndex);
+            });
         }
 
-        return visitedList;
+        BitSet reachableCells = reachedCells;
+        reachedCells = null;
+        queue = null;
+        return reachableCells;
+    }
+
+    private void reach(int index) {
+        reachedCells.set(index);
+        queue[queueTail++] = index;
+        if (itemCells.get(index))
+            nbItemsUnreached--;
     }
 
     public GameMap prepareGameMap() {
@@ -273,4 +298,18 @@ public class GameMapValidator {
         return gameMap;
     }
 
+    /**
+     * @return time taken to load the map file and build its GameMap, in nanoseconds
+     */
+    public long getLoadTime() { return loadTime; }
+
+    /**
+     * @return time taken by the last call to validateMap(), in nanoseconds
+     */
+    public long getValidationTime() { return validationTime; }
+
+    /**
+     * @return true if the map was made for a headless game, else false
+     */
+    public boolean isHeadless() { return isHeadless; }
 }
@@ -2,11 +2,18 @@ package gamemap;
 
 import logger.GameCallback;
 import logger.EditorErrorCallback;
+import logger.LogWriter;
+import matachi.mapeditor.editor.CompiledMapLoader;
 import pacman.Game;
 import pacman.utility.PropertiesLoader;
 
 import java.io.File;
+import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * GameRunner takes a folder of games and has the ability to validate and test the folder of games.
@@ -19,6 +26,22 @@ public class GameRunner {
     private EditorErrorCallback editorErrorCallback;
     private String propertiesString;
     private boolean isValidGame;
+    private int nbWorkers = 1;
+    private int nbValidationWorkers = Runtime.getRuntime().availableProcessors();
+    private boolean isHeadless = false;
+
+    // Validated levels, in level order, each waiting to be played once
+    private ArrayList<GameMapValidator> gameMapValidators;
+
+    // Time taken to load and validate each level, in nanoseconds, in level order
+    private LinkedHashMap<File, Long> validationTimes = new LinkedHashMap<File, Long>();
+
+    // How each level went, in level order
+    private ArrayList<LevelReport> levelReports = new ArrayList<LevelReport>();
+
+    // Games being played by testGameParallel(), and the last level whose result is still needed
+    private AtomicReferenceArray<Game> runningGames;
+    private volatile int lastNeededLevel;
 
     /**
      * Creates a gameRunner to test the gameFolder provided. In order to test the game,
@@ -36,40 +59,49 @@ public class GameRunner {
     }
 
     /**
-     * Vaidates the Game Folder
+     * Vaidates the Game Folder, and then its levels on nbValidationWorkers threads. Errors are written in level order.
      * @return if the game is valid, this returns true. THis means that testGame() will attempt to play
      * all the map files that were provided to this GameRunner. Otherwise, this returns null andx testGame()
-     * will fail.
+     * will fail. If a level is invalid, getCurrentFile() will return the first invalid level.
      */
     public boolean validateGame() {
-        return isValidGame = validateGameInternal();
+        levelReports.clear();
+        return isValidGame = validateGameInternal() && validateLevels();
     }
 
     /**
      * Tests the game.
      * @return If validateGame() hasn't been called beforehand, this will return false. Otherwise, this function
-     * will return whether the game was tested without error (true if there were no errors in testing the game, false
-     * if errors were found in one of the maps). If false, getCurrentFile() will return the file that
-     * the GameRunner found an error on.
+     * will return whether the game was tested without error. Every level has already been validated by
+     * validateGame(), so getCurrentFile() will return the last level played.
      */
     public boolean testGame() {
         if (!isValidGame) return false;
 
-        for (File file : gameFiles) {
-            this.currentMapFile = file;
-            GameMapValidator gameMapValidator = new GameMapValidator(file, editorErrorCallback);
+        // Levels the game doesn't get to are reported as skipped
+        for (int i = 0; i < gameFiles.size(); i++) {
+            File file = gameFiles.get(i);
+            levelReports.set(i, new LevelReport(file, true, validationTimes.get(file)));
+        }
+        if (nbWorkers > 1) return testGameParallel();
 
-            if (!gameMapValidator.validateMap()) {
-                return false;
-            }
+        boolean isHeadlessGame = isHeadlessGame();
+        for (int i = 0; i < gameFiles.size(); i++) {
+            this.currentMapFile = gameFiles.get(i);
+            GameMapValidator gameMapValidator = takeValidator(i, isHeadlessGame);
 
             Properties properties = PropertiesLoader.loadPropertiesFile(propertiesString);
-            GameCallback gameCallback = new GameCallback();
+            if (isHeadless)
+                properties.setProperty("Game.isHeadless", "true");
+            GameCallback gameCallback = new GameCallback(isAsyncLog(properties));
             GameMap gameMap = gameMapValidator.prepareGameMap();
             Game game = new Game(gameCallback, properties, gameMap);
 
+            long startTime = System.nanoTime();
             boolean pacManWon = game.run();
+            levelReports.set(i, reportLevel(i, game, pacManWon, System.nanoTime() - startTime));
             game.close();
+            gameCallback.close();
 
             if (!pacManWon)
                 return true;
@@ -79,6 +111,191 @@ public class GameRunner {
         return true;
     }
 
+    /**
+     * Plays the levels on a pool of nbWorkers, as headless games. Results are collected in level
+     * order, and only the last level that testGame() would have reached has its game log written
+     * out, so the outcome is the same as testing the levels one at a time. Levels are only started
+     * up to nbWorkers ahead of the level being collected, so only that many finished game logs are
+     * kept waiting. Once a level is lost, the levels after it are cancelled, or stopped if they've
+     * already started.
+     * @return same as testGame()
+     */
+    private boolean testGameParallel() {
+        runningGames = new AtomicReferenceArray<Game>(gameFiles.size());
+        lastNeededLevel = gameFiles.size() - 1;
+        ForkJoinPool pool = new ForkJoinPool(nbWorkers);
+        ArrayList<Future<LevelResult>> futures = new ArrayList<Future<LevelResult>>();
+
+        try {
+            String lastGameLog = null;
+            for (int i = 0; i < gameFiles.size(); i++) {
+                while (futures.size() < Math.min(gameFiles.size(), i + nbWorkers + 1)) {
+                    int level = futures.size();
+                    GameMapValidator gameMapValidator = takeValidator(level, true);
+                    futures.add(pool.submit(() -> testLevel(level, gameMapValidator)));
+                }
+
+                LevelResult result = futures.get(i).get();
+                futures.set(i, null);
+                this.currentMapFile = result.report.getFile();
+                levelReports.set(i, result.report);
+
+                lastGameLog = result.gameLog;
+                if (result.report.getResult() != LevelReport.Result.WON) {
+                    cancelLevelsAfter(i, futures);
+                    break;
+                }
+            }
+
+            // Each game overwrites the game log, so only the last game played is kept
+            if (lastGameLog != null) {
+                GameCallback gameCallback = new GameCallback(
+                        isAsyncLog(PropertiesLoader.loadPropertiesFile(propertiesString)));
+                writeLines(gameCallback, lastGameLog);
+                gameCallback.close();
+            }
+
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Cancels the levels after the given level, stopping any games of them being played
+     * @param level last level whose result is needed
+     * @param futures futures of the levels submitted so far
+     */
+    private void cancelLevelsAfter(int level, ArrayList<Future<LevelResult>> futures) {
+        lastNeededLevel = level;
+
+        // Only levels that have been submitted need cancelling
+        for (int i = level + 1; i < futures.size(); i++) {
+            futures.get(i).cancel(false);
+            Game game = runningGames.get(i);
+            if (game != null)
+                game.stop();
+        }
+    }
+
+    /**
+     * Plays a single validated level as a headless game, keeping the game log in memory
+     * @param level index of the level
+     * @param gameMapValidator validator the level was validated with
+     * @return result of testing the level
+     */
+    private LevelResult testLevel(int level, GameMapValidator gameMapValidator) {
+        Properties properties = PropertiesLoader.loadPropertiesFile(propertiesString);
+        properties.setProperty("Game.isHeadless", "true");
+        StringWriter gameLog = new StringWriter();
+        GameMap gameMap = gameMapValidator.prepareGameMap();
+        Game game = new Game(new GameCallback(gameLog), properties, gameMap);
+
+        // Levels cancelled while the game was being set up are stopped straight away
+        runningGames.set(level, game);
+        if (level > lastNeededLevel)
+            game.stop();
+
+        long startTime = System.nanoTime();
+        boolean pacManWon = game.run();
+        LevelReport report = reportLevel(level, game, pacManWon, System.nanoTime() - startTime);
+        game.close();
+
+        return new LevelResult(report, gameLog.toString());
+    }
+
+    private LevelReport reportLevel(int level, Game game, boolean pacManWon, long playTime) {
+        File file = gameFiles.get(level);
+        return new LevelReport(file, pacManWon ? LevelReport.Result.WON : LevelReport.Result.LOST,
+                game.getSimulationCycle(), game.getPacActor().getScore(), playTime, validationTimes.get(file));
+    }
+
+    /**
+     * Validates the levels on a pool of nbValidationWorkers, keeping each level's errors in memory and then
+     * writing them out in level order, so they're the same as validating the levels one at a time.
+     * @return true if every level is valid, else false
+     */
+    private boolean validateLevels() {
+        ForkJoinPool pool = new ForkJoinPool(nbValidationWorkers);
+        ArrayList<Future<ValidationResult>> futures = new ArrayList<Future<ValidationResult>>();
+        boolean isHeadlessGame = isHeadlessGame();
+        for (File file : gameFiles) {
+            futures.add(pool.submit(() -> validateLevel(file, isHeadlessGame)));
+        }
+
+        try {
+            gameMapValidators = new ArrayList<GameMapValidator>();
+            validationTimes.clear();
+            this.currentMapFile = null;
+            boolean areValidLevels = true;
+            for (Future<ValidationResult> future : futures) {
+                ValidationResult result = future.get();
+                gameMapValidators.add(result.gameMapValidator);
+                validationTimes.put(result.file, result.validationTime);
+                levelReports.add(new LevelReport(result.file, result.isValid, result.validationTime));
+                writeLines(editorErrorCallback, result.errorLog);
+
+                if (!result.isValid && areValidLevels) {
+                    this.currentMapFile = result.file;
+                    areValidLevels = false;
+                }
+            }
+            return areValidLevels;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private ValidationResult validateLevel(File file, boolean isHeadlessGame) {
+        StringWriter errorLog = new StringWriter();
+        GameMapValidator gameMapValidator = new GameMapValidator(file, new EditorErrorCallback(errorLog), isHeadlessGame);
+        boolean isValidMap = gameMapValidator.validateMap();
+        long validationTime = gameMapValidator.getLoadTime() + gameMapValidator.getValidationTime();
+        return new ValidationResult(file, gameMapValidator, isValidMap, validationTime, errorLog.toString());
+    }
+
+    /**
+     * Takes the validator of a level to play it. A level's GameMap is changed by playing it, so
+     * a level played before, or validated for the other kind of game, is loaded and validated again.
+     * @param level index of the level
+     * @param isHeadlessGame whether the level is played as a headless game
+     * @return validator of the level
+     */
+    private GameMapValidator takeValidator(int level, boolean isHeadlessGame) {
+        GameMapValidator gameMapValidator = gameMapValidators.set(level, null);
+        if (gameMapValidator == null || gameMapValidator.isHeadless() != isHeadlessGame) {
+            gameMapValidator = new GameMapValidator(gameFiles.get(level), editorErrorCallback, isHeadlessGame);
+            gameMapValidator.validateMap();
+        }
+        return gameMapValidator;
+    }
+
+    // Levels are played as headless games with more than one worker, or as the settings and properties say
+    private boolean isHeadlessGame() {
+        return nbWorkers > 1 || isHeadless || Game.isHeadless(PropertiesLoader.loadPropertiesFile(propertiesString));
+    }
+
+    // The game log can be written by a background thread, as set by the "GameCallback.isAsync" property
+    private static boolean isAsyncLog(Properties properties) {
+        return Boolean.parseBoolean(properties.getProperty("GameCallback.isAsync"));
+    }
+
+    private static void writeLines(LogWriter logWriter, String lines) {
+        for (String line : lines.lines().toList()) {
+            logWriter.writeString(line);
+        }
+    }
+
     /**
      * Internal function for validateGame()
      * @return
@@ -100,8 +317,9 @@ public class GameRunner {
 
             String fileName = file.getName();
 
-            // Check that the file is a xml file
-            if (!fileName.substring(fileName.indexOf(".") + 1).equals("xml"))
+            // Check that the file is a xml file, or a compiled map
+            String extension = fileName.substring(fileName.indexOf(".") + 1);
+            if (!extension.equals("xml") && !extension.equals(CompiledMapLoader.EXTENSION))
                 continue;
 
             // Check that the file name starts with a digit at least
@@ -168,4 +386,70 @@ public class GameRunner {
     }
 
     public File getCurrentMapFile() { return currentMapFile; }
+
+    /**
+     * @return time taken to load and validate each level by validateGame(), in nanoseconds, in level order
+     */
+    public Map<File, Long> getValidationTimes() { return Collections.unmodifiableMap(validationTimes); }
+
+    /**
+     * @return how each level went in the last calls to validateGame() and testGame(), in level order.
+     * Empty if the game folder itself isn't valid.
+     */
+    public List<LevelReport> getLevelReports() { return Collections.unmodifiableList(levelReports); }
+
+    /**
+     * Sets whether testGame() plays levels as headless games, even with a single worker
+     * @param isHeadless whether to play headless
+     */
+    public void setHeadless(boolean isHeadless) { this.isHeadless = isHeadless; }
+
+    /**
+     * Sets the number of levels testGame() will test at once. With more than one worker, levels are
+     * played as headless games.
+     * @param nbWorkers number of worker threads
+     */
+    public void setNbWorkers(int nbWorkers) { this.nbWorkers = Math.max(1, nbWorkers); }
+
+    /**
+     * Sets the number of levels validateGame() will validate at once, which is the number of processors
+     * by default. Doesn't change how levels are played.
+     * @param nbValidationWorkers number of worker threads
+     */
+    public void setNbValidationWorkers(int nbValidationWorkers) {
+        this.nbValidationWorkers = Math.max(1, nbValidationWorkers);
+    }
+
+    /**
+     * Outcome of testing a single level
+     */
+    private static class LevelResult {
+        private final LevelReport report;
+        private final String gameLog;
+
+        private LevelResult(LevelReport report, String gameLog) {
+            this.report = report;
+            this.gameLog = gameLog;
+        }
+    }
+
+    /**
+     * Outcome of validating a single level
+     */
+    private static class ValidationResult {
+        private final File file;
+        private final GameMapValidator gameMapValidator;
+        private final boolean isValid;
+        private final long validationTime;
+        private final String errorLog;
+
+        private ValidationResult(File file, GameMapValidator gameMapValidator, boolean isValid,
+                                 long validationTime, String errorLog) {
+            this.file = file;
+            this.gameMapValidator = gameMapValidator;
+            this.isValid = isValid;
+            this.validationTime = validationTime;
+            this.errorLog = errorLog;
+        }
+    }
 }
@@ -0,0 +1,331 @@
+package gamemap;
+
+import ch.aplu.jgamegrid.Location;
+import logger.EditorErrorCallback;
+import matachi.mapeditor.editor.Tile;
+import matachi.mapeditor.editor.TileManager;
+import matachi.mapeditor.grid.Grid;
+
+import java.beans.IndexedPropertyChangeEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * IncrementalMapValidator runs the same checks as GameMapValidator on a Grid being edited, keeping
+ * its results up to date as tiles are set instead of checking the whole map again. Tile counts are
+ * updated per tile, and the cells PacMan can reach are kept as a tree of the paths that reached them.
+ * Opening up a cell only searches from that cell, and blocking one only searches again for the
+ * cells that were reached through it. Moving PacMan's start or changing the portals rebuilds the tree.
+ */
+public class IncrementalMapValidator implements PropertyChangeListener {
+    private static final int NO_CELL = -1;
+    private static final int ROOT = -2;
+    private static final String[] PORTAL_NAMES = {
+            "PortalWhiteTile", "PortalYellowTile", "PortalDarkGoldTile", "PortalDarkGrayTile"
+    };
+
+    // Kinds of tile that matter to validation. Portals take one kind per colour, from PORTAL
+    private static final byte PATH = 0;
+    private static final byte WALL = 1;
+    private static final byte PAC = 2;
+    private static final byte PILL = 3;
+    private static final byte GOLD = 4;
+    private static final byte PORTAL = 5;
+
+    private final Grid grid;
+    private final byte[] kindOfChar = new byte[Character.MAX_VALUE + 1];
+    private int mapWidth;
+    private int mapHeight;
+    private byte[] kinds;
+
+    // Cells of each kind, in the order GameMapValidator finds them
+    private final TreeSet<Integer> pacCells = new TreeSet<Integer>();
+    private final TreeSet<Integer> pillCells = new TreeSet<Integer>();
+    private final TreeSet<Integer> goldCells = new TreeSet<Integer>();
+    private final ArrayList<TreeSet<Integer>> portalCells = new ArrayList<TreeSet<Integer>>();
+
+    // Cells reached from PacMan's start, and the cell each one was reached from
+    private BitSet reached;
+    private int[] parent;
+    private int[] queue;
+
+    /**
+     * Constructs an IncrementalMapValidator that follows the changes made to the given grid
+     * @param grid grid to validate
+     */
+    public IncrementalMapValidator(Grid grid) {
+        this.grid = grid;
+        for (int i = 0; i < PORTAL_NAMES.length; i++) {
+            portalCells.add(new TreeSet<Integer>());
+        }
+        for (Tile tile : TileManager.getInstance().getTiles()) {
+            kindOfChar[tile.getCharacter()] = kindOf(tile.getTileName());
+        }
+
+        rebuild();
+        grid.addPropertyChangeListener(this);
+    }
+
+    private static byte kindOf(String tileName) {
+        switch (tileName) {
+            case "WallTile": return WALL;
+            case "PacTile": return PAC;
+            case "PillTile": return PILL;
+            case "GoldTile": return GOLD;
+        }
+        for (int i = 0; i < PORTAL_NAMES.length; i++) {
+            if (PORTAL_NAMES[i].equals(tileName)) return (byte) (PORTAL + i);
+        }
+        return PATH;
+    }
+
+    /**
+     * A single tile changing is handled incrementally. Any other change to the grid, such as it
+     * being resized, means starting again.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (evt instanceof IndexedPropertyChangeEvent indexedEvent && evt.getPropertyName().equals("tile")
+                && grid.getWidth() == mapWidth && grid.getHeight() == mapHeight) {
+            setTile(indexedEvent.getIndex(), kindOfChar[(Character) evt.getNewValue()]);
+        } else {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        mapWidth = grid.getWidth();
+        mapHeight = grid.getHeight();
+        int nbCells = mapWidth * mapHeight;
+        kinds = new byte[nbCells];
+        pacCells.clear();
+        pillCells.clear();
+        goldCells.clear();
+        for (TreeSet<Integer> cells : portalCells) {
+            cells.clear();
+        }
+
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                int cell = y * mapWidth + x;
+                kinds[cell] = kindOfChar[grid.getTile(x, y)];
+                cellsOfKind(kinds[cell]).ifPresent(cells -> cells.add(cell));
+            }
+        }
+
+        reached = new BitSet(nbCells);
+        parent = new int[nbCells];
+        queue = new int[nbCells];
+        floodFromStart();
+    }
+
+    private void setTile(int cell, byte kind) {
+        byte oldKind = kinds[cell];
+        if (oldKind == kind) return;
+
+        kinds[cell] = kind;
+        cellsOfKind(oldKind).ifPresent(cells -> cells.remove(cell));
+        cellsOfKind(kind).ifPresent(cells -> cells.add(cell));
+
+        // PacMan's start or a portal pair changing can change paths anywhere
+        if (oldKind == PAC || kind == PAC || oldKind >= PORTAL || kind >= PORTAL) {
+            reached.clear();
+            floodFromStart();
+        } else if (oldKind == WALL) {
+            openCell(cell);
+        } else if (kind == WALL) {
+            blockCell(cell);
+        }
+    }
+
+    private Optional<TreeSet<Integer>> cellsOfKind(byte kind) {
+        switch (kind) {
+            case PAC: return Optional.of(pacCells);
+            case PILL: return Optional.of(pillCells);
+            case GOLD: return Optional.of(goldCells);
+        }
+        if (kind >= PORTAL) return Optional.of(portalCells.get(kind - PORTAL));
+        return Optional.empty();
+    }
+
+    private void floodFromStart() {
+        if (pacCells.size() != 1) return;
+        int start = pacCells.first();
+        reached.set(start);
+        parent[start] = ROOT;
+        queue[0] = start;
+        flood(1);
+    }
+
+    // A cell that has been opened up is reached if any reached cell leads into it
+    private void openCell(int cell) {
+        int from = findReachedSource(cell);
+        if (from == NO_CELL) return;
+
+        reached.set(cell);
+        parent[cell] = from;
+        queue[0] = cell;
+        flood(1);
+    }
+
+    // Cells reached through a cell that has been blocked have to find another way
+    private void blockCell(int cell) {
+        if (!reached.get(cell)) return;
+
+        // Collect and unreach everything reached through the cell
+        int nbCut = 0;
+        queue[nbCut++] = cell;
+        reached.clear(cell);
+        for (int head = 0; head < nbCut; head++) {
+            int current = queue[head];
+            int source = sourceOf(current);
+            for (int slot = 0; slot < 4; slot++) {
+                int next = neighbour(source, slot);
+                if (next != NO_CELL && reached.get(next) && parent[next] == current) {
+                    reached.clear(next);
+                    queue[nbCut++] = next;
+                }
+            }
+        }
+
+        // Any of them still next to a reached cell starts a new search
+        int nbSeeds = 0;
+        for (int i = 1; i < nbCut; i++) {
+            int cut = queue[i];
+            int from = findReachedSource(cut);
+            if (from != NO_CELL) {
+                reached.set(cut);
+                parent[cut] = from;
+                queue[nbSeeds++] = cut;
+            }
+        }
+        flood(nbSeeds);
+    }
+
+    // Breadth first search from the first nbSeeds cells in the queue, which are already reached
+    private void flood(int nbSeeds) {
+        int tail = nbSeeds;
+        for (int head = 0; head < tail; head++) {
+            int current = queue[head];
+            int source = sourceOf(current);
+            for (int slot = 0; slot < 4; slot++) {
+                int next = neighbour(source, slot);
+                if (next != NO_CELL && kinds[next] != WALL && !reached.get(next)) {
+                    reached.set(next);
+                    parent[next] = current;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds a reached cell that leads into the given cell. A cell leads into its neighbours, except for a
+     * linked portal, which leads into the neighbours of its pair instead.
+     */
+    private int findReachedSource(int cell) {
+        for (int slot = 0; slot < 4; slot++) {
+            int next = neighbour(cell, slot);
+            if (next == NO_CELL) continue;
+
+            int from = pairOf(next);
+            if (from == NO_CELL) from = next;
+            if (reached.get(from) && kinds[from] != WALL) return from;
+        }
+        return NO_CELL;
+    }
+
+    // The cell whose neighbours a cell leads into
+    private int sourceOf(int cell) {
+        int pair = pairOf(cell);
+        return pair == NO_CELL ? cell : pair;
+    }
+
+    // Portals are only linked when there are exactly two of a colour
+    private int pairOf(int cell) {
+        if (kinds[cell] < PORTAL) return NO_CELL;
+        TreeSet<Integer> cells = portalCells.get(kinds[cell] - PORTAL);
+        if (cells.size() != 2) return NO_CELL;
+        return cells.first() == cell ? cells.last() : cells.first();
+    }
+
+    private int neighbour(int cell, int slot) {
+        int x = cell % mapWidth;
+        int y = cell / mapWidth;
+        switch (slot) {
+            case 0: return y > 0 ? cell - mapWidth : NO_CELL;
+            case 1: return x < mapWidth - 1 ? cell + 1 : NO_CELL;
+            case 2: return y < mapHeight - 1 ? cell + mapWidth : NO_CELL;
+            default: return x > 0 ? cell - 1 : NO_CELL;
+        }
+    }
+
+    /**
+     * Writes the errors GameMapValidator would find in the grid as it is now, in the same order and
+     * format. Only the tiles counted and reached so far are looked at, so this doesn't search the map.
+     * @param editorErrorCallback callback to write errors to
+     * @param mapFile file to name in the errors
+     * @return true if the map is valid, else false
+     */
+    public boolean validateMap(EditorErrorCallback editorErrorCallback, File mapFile) {
+        if (pacCells.isEmpty()) {
+            editorErrorCallback.errNotEnoughPacMan(mapFile);
+            return false;
+        } else if (pacCells.size() > 1) {
+            editorErrorCallback.errTooManyPacMan(mapFile, toLocations(pacCells, false));
+            return false;
+        }
+
+        // Same order as the portals in GameMapValidator's HashMap
+        HashMap<String, TreeSet<Integer>> string2Portal = new HashMap<String, TreeSet<Integer>>();
+        for (int i = 0; i < PORTAL_NAMES.length; i++) {
+            string2Portal.put(PORTAL_NAMES[i], portalCells.get(i));
+        }
+        boolean validPortals = true;
+        for (String keyString : string2Portal.keySet().stream().toList()) {
+            TreeSet<Integer> cells = string2Portal.get(keyString);
+            String portalName = keyString.substring(keyString.indexOf('l') + 1, keyString.indexOf('T'));
+            if (cells.size() > 0 && cells.size() != 2) {
+                editorErrorCallback.errPortalsNot2(mapFile, portalName, toLocations(cells, false));
+                validPortals = false;
+            }
+        }
+        if (!validPortals)
+            return false;
+
+        if (pillCells.size() + goldCells.size() < 2) {
+            editorErrorCallback.errNotEnoughPillsOrGold(mapFile);
+            return false;
+        }
+
+        ArrayList<Location> inaccessibleGold = toLocations(goldCells, true);
+        ArrayList<Location> inaccessiblePills = toLocations(pillCells, true);
+        if (!inaccessibleGold.isEmpty())
+            editorErrorCallback.errInaccessibleGold(mapFile, inaccessibleGold);
+        if (!inaccessiblePills.isEmpty())
+            editorErrorCallback.errInaccessiblePills(mapFile, inaccessiblePills);
+        return inaccessibleGold.isEmpty() && inaccessiblePills.isEmpty();
+    }
+
+    /**
+     * @param mapFile file to name in the errors
+     * @return the errors validateMap() would write, one per line, or an empty string if there are none
+     */
+    public String getErrors(File mapFile) {
+        StringWriter errors = new StringWriter();
+        validateMap(new EditorErrorCallback(errors), mapFile);
+        return errors.toString();
+    }
+
+    private ArrayList<Location> toLocations(TreeSet<Integer> cells, boolean onlyUnreached) {
+        ArrayList<Location> locations = new ArrayList<Location>();
+        for (int cell : cells) {
+            if (!onlyUnreached || !reached.get(cell))
+                locations.add(new Location(cell % mapWidth, cell / mapWidth));
+        }
+        return locations;
+    }
+}
@@ -0,0 +1,53 @@
+package gamemap;
+
+import java.io.File;
+
+/**
+ * LevelReport summarises how a single level of a game folder went when it was tested
+ */
+public class LevelReport {
+    public enum Result { WON, LOST, INVALID, SKIPPED }
+
+    private final File file;
+    private final Result result;
+    private final int ticks;
+    private final int score;
+    private final long playTime;
+    private final long validationTime;
+
+    /**
+     * Constructs a LevelReport
+     * @param file map file of the level
+     * @param result how the level ended. Levels that weren't played because an earlier level was
+     *               lost or invalid are SKIPPED
+     * @param ticks number of simulation cycles the game ran for
+     * @param score PacMan's score at the end of the game
+     * @param playTime wall time taken to play the level, in nanoseconds
+     * @param validationTime wall time taken to load and validate the level, in nanoseconds
+     */
+    public LevelReport(File file, Result result, int ticks, int score, long playTime, long validationTime) {
+        this.file = file;
+        this.result = result;
+        this.ticks = ticks;
+        this.score = score;
+        this.playTime = playTime;
+        this.validationTime = validationTime;
+    }
+
+    /**
+     * Constructs a LevelReport for a level that hasn't been played
+     * @param file map file of the level
+     * @param isValid whether the level is valid
+     * @param validationTime wall time taken to load and validate the level, in nanoseconds
+     */
+    public LevelReport(File file, boolean isValid, long validationTime) {
+        this(file, isValid ? Result.SKIPPED : Result.INVALID, 0, 0, 0, validationTime);
+    }
+
+    public File getFile() { return file; }
+    public Result getResult() { return result; }
+    public int getTicks() { return ticks; }
+    public int getScore() { return score; }
+    public long getPlayTime() { return playTime; }
+    public long getValidationTime() { return validationTime; }
+}
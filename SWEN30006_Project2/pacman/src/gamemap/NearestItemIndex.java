@@ -0,0 +1,161 @@
+package gamemap;
+
+import ch.aplu.jgamegrid.Location;
+import pacman.Item.Item;
+import pacman.Item.ItemEventCode;
+import pacman.Item.ItemEventListener;
+
+import java.util.ArrayList;
+
+/**
+ * NearestItemIndex keeps track of the items left on a GameMap, so the nearest one can be found
+ * without looking at every item. Items are stored by cell, and the cells are grouped into square
+ * buckets that know how many items they hold. A search looks at rings of buckets around the start,
+ * stopping once no bucket further out could hold a nearer item. Items are removed as they are
+ * consumed, by listening to their ItemHandlers.
+ */
+public class NearestItemIndex implements ItemEventListener {
+    private static final int BUCKET_SIZE = 8;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int nbBucketsX;
+    private final int nbBucketsY;
+    private final Item[] cellItems;
+
+    // Position of each item in the order it was added, used to break ties
+    private final int[] cellOrder;
+    private final int[] bucketCounts;
+    private int nbItems = 0;
+    private int nbAdded = 0;
+
+    /**
+     * Constructs an empty index for a map of the given size
+     * @param mapWidth width of the map
+     * @param mapHeight height of the map
+     */
+    public NearestItemIndex(int mapWidth, int mapHeight) {
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+        this.nbBucketsX = (mapWidth + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        this.nbBucketsY = (mapHeight + BUCKET_SIZE - 1) / BUCKET_SIZE;
+        this.cellItems = new Item[mapWidth * mapHeight];
+        this.cellOrder = new int[mapWidth * mapHeight];
+        this.bucketCounts = new int[nbBucketsX * nbBucketsY];
+    }
+
+    /**
+     * Adds the items that haven't been consumed yet. Items added earlier win ties.
+     * @param items items to add
+     */
+    public void addItems(ArrayList<Item> items) {
+        for (Item item : items) {
+            if (item.isConsumed())
+                continue;
+
+            Location location = item.getLocation();
+            int cell = location.y * mapWidth + location.x;
+            if (cellItems[cell] != null)
+                continue;
+
+            cellItems[cell] = item;
+            cellOrder[cell] = nbAdded++;
+            bucketCounts[bucketOf(location.x, location.y)]++;
+            nbItems++;
+        }
+    }
+
+    @Override
+    public void onItemConsumed(ItemEventCode code, Location location) {
+        int cell = location.y * mapWidth + location.x;
+        if (cellItems[cell] == null)
+            return;
+
+        cellItems[cell] = null;
+        bucketCounts[bucketOf(location.x, location.y)]--;
+        nbItems--;
+    }
+
+    /**
+     * Finds the item nearest to the given location, by the same rounded straight-line distance as
+     * Location.getDistanceTo(). Of equally near items, the one added first is returned.
+     * @param from location to measure from
+     * @return nearest item, or null if there are none left
+     */
+    public Item findNearest(Location from) {
+        if (nbItems == 0) return null;
+
+        Item nearest = null;
+        int nearestDistance = Integer.MAX_VALUE;
+        int nearestOrder = Integer.MAX_VALUE;
+        int fromBucketX = Math.floorDiv(from.x, BUCKET_SIZE);
+        int fromBucketY = Math.floorDiv(from.y, BUCKET_SIZE);
+        int maxRing = Math.max(nbBucketsX, nbBucketsY) + Math.max(Math.abs(fromBucketX), Math.abs(fromBucketY));
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+
+            // Every cell in this ring is at least this far away
+            int minDistance = ring == 0 ? 0 : (ring - 1) * BUCKET_SIZE + 1;
+            if (nearest != null && minDistance > nearestDistance)
+                break;
+
+            for (int bucketY = fromBucketY - ring; bucketY <= fromBucketY + ring; bucketY++) {
+                if (bucketY < 0 || bucketY >= nbBucketsY)
+                    continue;
+
+                // Only the edges of the ring are new
+                boolean isEdgeRow = bucketY == fromBucketY - ring || bucketY == fromBucketY + ring;
+                int step = isEdgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int bucketX = fromBucketX - ring; bucketX <= fromBucketX + ring; bucketX += step) {
+                    if (bucketX < 0 || bucketX >= nbBucketsX || bucketCounts[bucketY * nbBucketsX + bucketX] == 0)
+                        continue;
+
+                    int maxY = Math.min((bucketY + 1) * BUCKET_SIZE, mapHeight);
+                    int maxX = Math.min((bucketX + 1) * BUCKET_SIZE, mapWidth);
+                    for (int y = bucketY * BUCKET_SIZE; y < maxY; y++) {
+                        for (int x = bucketX * BUCKET_SIZE; x < maxX; x++) {
+                            int cell = y * mapWidth + x;
+                            Item item = cellItems[cell];
+                            if (item == null)
+                                continue;
+
+                            int distance = distance(from.x, from.y, x, y);
+                            if (distance < nearestDistance ||
+                                    (distance == nearestDistance && cellOrder[cell] < nearestOrder)) {
+                                nearest = item;
+                                nearestDistance = distance;
+                                nearestOrder = cellOrder[cell];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * @param x x-coordinate of the cell
+     * @param y y-coordinate of the cell
+     * @return item left at the cell, or null if there is none
+     */
+    public Item getItemAt(int x, int y) {
+        if (x < 0 || x >= mapWidth || y < 0 || y >= mapHeight)
+            return null;
+        return cellItems[y * mapWidth + x];
+    }
+
+    public boolean hasItemAt(int cell) { return cellItems[cell] != null; }
+    public int getNbItems() { return nbItems; }
+
+    private int bucketOf(int x, int y) {
+        return (y / BUCKET_SIZE) * nbBucketsX + (x / BUCKET_SIZE);
+    }
+
+    // Same as Location.getDistanceTo(), without creating Locations
+    private static int distance(int x1, int y1, int x2, int y2) {
+        int dx = x2 - x1;
+        int dy = y2 - y1;
+        return (int) (Math.sqrt(dx * dx + dy * dy) + 0.5);
+    }
+}
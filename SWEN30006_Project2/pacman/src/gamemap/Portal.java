@@ -6,14 +6,19 @@ import ch.aplu.jgamegrid.Location;
 import pacman.Entity.Entity;
 
 import java.util.ArrayList;
+import java.util.function.IntConsumer;
 
 /**
  * Portal allows for anyone who steps on it to teleport to a lined portal
  */
 public class Portal extends Actor implements SpaceOccupier {
     private Space other;
-    public Portal(String filePath) {
-        super(filePath);
+    /**
+     * @param filePath filename to the portal's image
+     * @param isHeadless whether the portal is for a headless game, and so has no sprite
+     */
+    public Portal(String filePath, boolean isHeadless) {
+        super(false, filePath, isHeadless ? 0 : 1);
     }
     public void link(Space otherPortalSpace) {
         this.other = otherPortalSpace;
@@ -26,6 +31,9 @@ public class Portal extends Actor implements SpaceOccupier {
         gameGrid.addActor(this, space.getLocation());
         this.show();
     }
+    public void placeOnto(Space space) {
+        this.setLocation(space.getLocation());
+    }
 
     // Since entering a portal teleports you instantly to the other portal,
     // The effective neighbours of the portal is the neighbours of the other portal
@@ -34,6 +42,11 @@ public class Portal extends Actor implements SpaceOccupier {
         return other.getNeighbours();
     }
 
+    public void forEachNeighbourOnEnter(Space space, IntConsumer action) {
+        if (other == null) space.forEachNeighbour(action);
+        else other.forEachNeighbour(action);
+    }
+
     // Exiting a portal is the same as a normal pathTile
     public ArrayList<Location> neighboursOnExit(Space space) {
         return null;
@@ -3,70 +3,113 @@ import ch.aplu.jgamegrid.GameGrid;
 import ch.aplu.jgamegrid.Location;
 import pacman.Entity.Entity;
 
-import java.awt.*;
 import java.util.ArrayList;
+import java.util.function.IntConsumer;
 
 /**
  * Space will attempt to interact with any Entity that lands on them. It is only aware of its location
- * and several neighbour locations, as well as how the space should be coloured.
+ * and several neighbour locations, as well as how the space should be coloured. A Space is a view onto
+ * a single cell of a GameMap, which is where everything about the cell is kept.
  */
 public class Space {
-    private final Location location;
-    private final boolean isWalkable;
-    private final SpaceOccupier spaceOccupier;
-    private ArrayList<Location> neighbours;
-    private final Color tileColour;
-    public Space(int x, int y, SpaceOccupier spaceOccupier, Color tileColour, boolean isWalkable) {
-        this.location = new Location(x,y);
-        this.spaceOccupier = spaceOccupier;
-        this.isWalkable = isWalkable;
-        this.tileColour = tileColour;
+    private final GameMap gameMap;
+    private final int index;
+    protected Space(GameMap gameMap, int index) {
+        this.gameMap = gameMap;
+        this.index = index;
+    }
 
-        // Get total neighbours, neighbours into the space and
-        // neighbours out of the space
-        this.neighbours = new ArrayList<Location>();
+    public Location getLocation() { return new Location(index % gameMap.getMapWidth(), index / gameMap.getMapWidth()); }
 
-        // Calculate neighbour space locations
-        Location.CompassDirection[] compassDirections = {
-                Location.CompassDirection.NORTH,
-                Location.CompassDirection.EAST,
-                Location.CompassDirection.SOUTH,
-                Location.CompassDirection.WEST
-        };
+    public ArrayList<Location> getNeighbours() {
+        Location location = getLocation();
 
-        for (Location.CompassDirection direction : compassDirections) {
-            this.neighbours.add(this.location.getNeighbourLocation(direction));
-        }
+        // Neighbours in the order north, east, south, west. These can be off the map
+        ArrayList<Location> neighbours = new ArrayList<Location>(GameMap.NB_NEIGHBOURS);
+        neighbours.add(new Location(location.x, location.y - 1));
+        neighbours.add(new Location(location.x + 1, location.y));
+        neighbours.add(new Location(location.x, location.y + 1));
+        neighbours.add(new Location(location.x - 1, location.y));
+        return neighbours;
     }
-
-    public Location getLocation() { return location.clone(); }
-
-    public ArrayList<Location> getNeighbours() { return new ArrayList<>(neighbours); }
     public ArrayList<Location> getNeighboursOnEnter() {
+        SpaceOccupier spaceOccupier = getOccupier();
         if (spaceOccupier == null) return getNeighbours();
         ArrayList<Location> neighboursOnEnter = spaceOccupier.neighboursOnEnter(this);
-        return neighboursOnEnter == null ? neighbours : neighboursOnEnter;
+        return neighboursOnEnter == null ? getNeighbours() : neighboursOnEnter;
     }
     public ArrayList<Location> getNeighboursOnExit() {
+        SpaceOccupier spaceOccupier = getOccupier();
         if (spaceOccupier == null) return getNeighbours();
         ArrayList<Location> neighboursOnExit = spaceOccupier.neighboursOnExit(this);
-        return neighboursOnExit == null ? neighbours : neighboursOnExit;
+        return neighboursOnExit == null ? getNeighbours() : neighboursOnExit;
     }
 
-    public void placeOnto(GameGrid gameGrid) {
+    /**
+     * Calls action with the index of each neighbouring cell on the map, in the same order as
+     * getNeighbours(). Unlike getNeighbours(), nothing is allocated.
+     * @param action action taking the index of a neighbouring cell
+     */
+    public void forEachNeighbour(IntConsumer action) {
+        for (int slot = 0; slot < GameMap.NB_NEIGHBOURS; slot++) {
+            int neighbour = gameMap.getNeighbour(index, slot);
+            if (neighbour != GameMap.NO_CELL)
+                action.accept(neighbour);
+        }
+    }
+
+    /**
+     * Calls action with the index of each cell in getNeighboursOnEnter() that is on the map
+     * @param action action taking the index of a neighbouring cell
+     */
+    public void forEachNeighbourOnEnter(IntConsumer action) {
+        SpaceOccupier spaceOccupier = getOccupier();
+        if (spaceOccupier == null) forEachNeighbour(action);
+        else spaceOccupier.forEachNeighbourOnEnter(this, action);
+    }
 
+    /**
+     * Calls action with the index of each cell in getNeighboursOnExit() that is on the map
+     * @param action action taking the index of a neighbouring cell
+     */
+    public void forEachNeighbourOnExit(IntConsumer action) {
+        SpaceOccupier spaceOccupier = getOccupier();
+        if (spaceOccupier == null) forEachNeighbour(action);
+        else spaceOccupier.forEachNeighbourOnExit(this, action);
+    }
 
-        gameGrid.getBg().fillCell(location, tileColour);
+    // Used by occupiers that only give their neighbours as Locations
+    void forEachCell(ArrayList<Location> locations, IntConsumer action) {
+        for (Location location : locations) {
+            if (location.x >= 0 && location.x < gameMap.getMapWidth() &&
+                    location.y >= 0 && location.y < gameMap.getMapHeight())
+                action.accept(gameMap.toIndex(location.x, location.y));
+        }
+    }
+
+    public void placeOnto(GameGrid gameGrid) {
+        gameGrid.getBg().fillCell(getLocation(), gameMap.getTileColour(index));
+        SpaceOccupier spaceOccupier = getOccupier();
         if (spaceOccupier != null) {
             spaceOccupier.placeOnto(gameGrid, this);
         }
     }
 
+    public void placeOnto() {
+        SpaceOccupier spaceOccupier = getOccupier();
+        if (spaceOccupier != null) {
+            spaceOccupier.placeOnto(this);
+        }
+    }
+
     public void landedOnBy(Entity e) {
+        SpaceOccupier spaceOccupier = getOccupier();
         if (spaceOccupier != null) {
             spaceOccupier.interact(e);
         }
     }
 
-    public boolean isWalkable() { return this.isWalkable; }
+    public int getIndex() { return index; }
+    public SpaceOccupier getOccupier() { return gameMap.getOccupier(index); }
+    public boolean isWalkable() { return gameMap.isWalkable(index); }
 }
@@ -4,16 +4,32 @@ import ch.aplu.jgamegrid.Location;
 import pacman.Entity.*;
 
 import java.util.ArrayList;
+import java.util.function.IntConsumer;
 
 /**
  * Interface for anything that would want to occupy a space.
  * A can interact with entities that step on them, and they can
  * also modify the potential options that an Entity has to move
- * when they both enter or exit a space.
+ * when they both enter or exit a space. Occupiers can be placed onto a
+ * space without a GameGrid for headless games. Searches walk those options
+ * by cell index, through forEachNeighbourOnEnter() and forEachNeighbourOnExit().
  */
 public interface SpaceOccupier {
     void interact(Entity e);
     void placeOnto(GameGrid gameGrid, Space space);
+    void placeOnto(Space space);
     ArrayList<Location> neighboursOnEnter(Space space);
     ArrayList<Location> neighboursOnExit(Space space);
+
+    default void forEachNeighbourOnEnter(Space space, IntConsumer action) {
+        ArrayList<Location> neighbours = neighboursOnEnter(space);
+        if (neighbours == null) space.forEachNeighbour(action);
+        else space.forEachCell(neighbours, action);
+    }
+
+    default void forEachNeighbourOnExit(Space space, IntConsumer action) {
+        ArrayList<Location> neighbours = neighboursOnExit(space);
+        if (neighbours == null) space.forEachNeighbour(action);
+        else space.forEachCell(neighbours, action);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+package logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * AsyncLog hands lines over to a background thread, which writes them to a channel in batches.
+ * Lines are copied into a bounded ring buffer of chars, so a writer that falls behind makes callers
+ * wait instead of using up memory, and adding a line doesn't allocate. Lines are written in the
+ * order they were added. Waiting for the writer thread can't be interrupted, as it always catches up,
+ * so an interrupt is kept for the caller instead.
+ */
+class AsyncLog implements Runnable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final Thread thread;
+
+    // Only one line is added at a time, so a line that doesn't fit in one go isn't split up by another
+    private final Object addLock = new Object();
+
+    // Ring buffer of chars waiting to be written. Guarded by this
+    private final char[] ring;
+    private int head = 0;
+    private int size = 0;
+    private long nbAdded = 0;
+    private long nbWritten = 0;
+    private boolean isClosed = false;
+
+    // Set once the writer thread has finished, however it finished, so no one waits on it after that
+    private boolean isStopped = false;
+
+    // Chars taken from the ring by the writer thread, waiting to be encoded
+    private final CharBuffer pending;
+
+    /**
+     * Constructs an AsyncLog and starts its writer thread
+     * @param channel channel to write to
+     * @param charset charset to encode lines with
+     * @param capacity maximum number of chars waiting to be written
+     */
+    AsyncLog(WritableByteChannel channel, Charset charset, int capacity) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.ring = new char[capacity];
+        this.pending = CharBuffer.allocate(capacity);
+        this.thread = new Thread(this, "AsyncLog");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Adds a line to be written, waiting for space in the ring buffer if it's full
+     * @param line line to write, without the line separator
+     */
+    void add(CharSequence line) {
+        boolean isInterrupted;
+        synchronized (addLock) {
+            isInterrupted = append(line) | append("\n");
+        }
+        if (isInterrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Adds chars to be written as they are, such as those written to a LogWriter's fileWriter
+     * @param chars chars to write
+     */
+    void write(CharSequence chars) {
+        boolean isInterrupted;
+        synchronized (addLock) {
+            isInterrupted = append(chars);
+        }
+        if (isInterrupted) Thread.currentThread().interrupt();
+    }
+
+    // Returns whether the caller was interrupted while waiting for space
+    private synchronized boolean append(CharSequence chars) {
+        boolean isInterrupted = false;
+        int offset = 0;
+        int length = chars.length();
+        while (offset < length) {
+            while (size == ring.length && !isClosed && !isStopped) {
+                isInterrupted |= awaitChange();
+            }
+            if (isClosed || isStopped) break;
+
+            // Copy as much as fits before the end of the ring or the start of the waiting chars
+            int tail = (head + size) % ring.length;
+            int count = Math.min(length - offset, Math.min(ring.length - size, ring.length - tail));
+            copy(chars, offset, offset + count, tail);
+            offset += count;
+            size += count;
+            nbAdded += count;
+            notifyAll();
+        }
+        return isInterrupted;
+    }
+
+    private void copy(CharSequence chars, int start, int end, int destination) {
+        if (chars instanceof String string) {
+            string.getChars(start, end, ring, destination);
+        } else if (chars instanceof StringBuilder builder) {
+            builder.getChars(start, end, ring, destination);
+        } else {
+            for (int i = start; i < end; i++) {
+                ring[destination++] = chars.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Waits until every line added so far has been written to the channel
+     */
+    void flush() {
+        boolean isInterrupted = false;
+        synchronized (this) {
+            while (nbWritten < nbAdded && !isStopped) {
+                isInterrupted |= awaitChange();
+            }
+        }
+        if (isInterrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Writes any remaining lines, then stops the writer thread and closes the channel
+     */
+    void close() {
+        synchronized (this) {
+            if (isClosed) return;
+            isClosed = true;
+            notifyAll();
+        }
+
+        try {
+            thread.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            writeLines();
+        } finally {
+            synchronized (this) {
+                isStopped = true;
+                notifyAll();
+            }
+        }
+    }
+
+    private void writeLines() {
+        long nbTaken = 0;
+        while (true) {
+            boolean isMoreWaiting;
+            synchronized (this) {
+
+                // Nothing else has a reason to interrupt the writer thread, so interrupts are ignored
+                while (size == 0 && !isClosed) {
+                    awaitChange();
+                }
+                if (size == 0) break;
+
+                // Take as many waiting chars as there's room for, so they can be encoded without the lock
+                int count = Math.min(size, pending.remaining());
+                int firstPart = Math.min(count, ring.length - head);
+                pending.put(ring, head, firstPart);
+                pending.put(ring, 0, count - firstPart);
+                head = (head + count) % ring.length;
+                size -= count;
+                nbTaken += count;
+                isMoreWaiting = size > 0;
+                notifyAll();
+            }
+
+            // Write the batch out once the ring has been emptied
+            boolean isBatchDone = !isMoreWaiting;
+            try {
+                pending.flip();
+                encode(false);
+                pending.compact();
+                if (!isMoreWaiting)
+                    drain();
+            } catch (IOException e) {
+                e.printStackTrace();
+
+                // The batch is dropped, as a line that fails to write is when logging synchronously
+                pending.clear();
+                byteBuffer.clear();
+                isBatchDone = true;
+            } finally {
+                if (isBatchDone) {
+                    synchronized (this) {
+                        nbWritten = nbTaken;
+                        notifyAll();
+                    }
+                }
+            }
+        }
+
+        try {
+            pending.flip();
+            encode(true);
+            drain();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        synchronized (this) {
+            nbWritten = nbTaken;
+            notifyAll();
+        }
+    }
+
+    // A char that can't be encoded without the next one is left in pending
+    private void encode(boolean isEndOfInput) throws IOException {
+        while (encoder.encode(pending, byteBuffer, isEndOfInput) == CoderResult.OVERFLOW) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        byteBuffer.flip();
+        while (byteBuffer.hasRemaining()) {
+            channel.write(byteBuffer);
+        }
+        byteBuffer.clear();
+    }
+
+    // Returns whether the wait was interrupted, leaving the caller to restore the interrupt once done waiting
+    private boolean awaitChange() {
+        try {
+            wait();
+            return false;
+        } catch (InterruptedException e) {
+            return true;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package logger;
 
 import ch.aplu.jgamegrid.Location;
 import java.io.File;
+import java.io.Writer;
 import java.util.ArrayList;
 
 /**
@@ -12,6 +13,9 @@ public class EditorErrorCallback extends LogWriter {
     public EditorErrorCallback() {
         super(logFilePath);
     }
+    public EditorErrorCallback(Writer writer) {
+        super(writer);
+    }
     public void errLevelToManyFiles(File gameFolder, ArrayList<File> fileList) {
         String string  = String.format("%s - multiple maps at the same level: ", gameFolder.getName());
 
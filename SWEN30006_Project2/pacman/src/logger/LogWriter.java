@@ -1,28 +1,212 @@
 package logger;
 
 import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
 
 public abstract class LogWriter {
+    private static final int ASYNC_CAPACITY = 64 * 1024;
 
     public FileWriter fileWriter;
 
+    // Where lines are written, which is fileWriter when logging to a file. Only asyncLog is set
+    // in asynchronous mode, where fileWriter hands what's written to it over to asyncLog as well
+    private Writer writer;
+    private AsyncLog asyncLog;
+
+    // Reused to copy lines that aren't Strings
+    private char[] lineChars = new char[128];
+
+    // Whether lines are only flushed once the current batch ends
+    private boolean isInBatch = false;
+
     public LogWriter(String filePath) {
         try {
             this.fileWriter = new FileWriter(new File(filePath));
+            this.writer = fileWriter;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Constructs a LogWriter that writes to the given writer instead of a log file
+     * @param writer writer to log to
+     */
+    public LogWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Constructs a LogWriter for a log file. In asynchronous mode, lines are written in batches
+     * by a background thread, and only reach the file once flush() or close() is called or the
+     * thread gets to them. The file ends up the same either way.
+     * @param filePath path of the log file
+     * @param isAsync whether to write asynchronously
+     */
+    public LogWriter(String filePath, boolean isAsync) {
+        if (!isAsync) {
+            try {
+                this.fileWriter = new FileWriter(new File(filePath));
+                this.writer = fileWriter;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
+        try {
+            FileOutputStream stream = new FileOutputStream(filePath);
+
+            // Same charset as FileWriter
+            this.asyncLog = new AsyncLog(stream.getChannel(), Charset.defaultCharset(), ASYNC_CAPACITY);
+            this.fileWriter = new AsyncFileWriter(stream.getFD(), asyncLog);
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
     public void writeString(String str) {
+        writeLine(str);
+    }
+
+    /**
+     * Writes the chars of a line, without turning it into a String first. The line can be
+     * reused as soon as this returns.
+     * @param line line to write, without the line separator
+     */
+    public synchronized void writeLine(CharSequence line) {
+        if (asyncLog != null) {
+            asyncLog.add(line);
+            return;
+        }
+
+        try {
+            if (line instanceof String string) {
+                writer.write(string);
+            } else {
+                if (lineChars.length < line.length())
+                    lineChars = new char[Math.max(line.length(), 2 * lineChars.length)];
+                for (int i = 0; i < line.length(); i++) {
+                    lineChars[i] = line.charAt(i);
+                }
+                writer.write(lineChars, 0, line.length());
+            }
+            writer.write("\n");
+            if (!isInBatch) writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts a batch of lines, which are flushed together when the batch ends instead of one at a
+     * time. Asynchronous logs are written in batches anyway, so this makes no difference to them.
+     */
+    public synchronized void startBatch() {
+        isInBatch = true;
+    }
+
+    /**
+     * Ends the current batch of lines, flushing them. Doesn't wait for an asynchronous log
+     */
+    public synchronized void endBatch() {
+        isInBatch = false;
+        if (asyncLog != null) return;
+
+        try {
+            if (writer != null) writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits for every line written so far to reach the log
+     */
+    public void flush() {
+        if (asyncLog != null) {
+            asyncLog.flush();
+            return;
+        }
+
+        try {
+            if (writer != null) writer.flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes out any remaining lines and closes the log
+     */
+    public void close() {
+        if (asyncLog != null) {
+            asyncLog.close();
+            return;
+        }
+
         try {
-            fileWriter.write(str);
-            fileWriter.write("\n");
-            fileWriter.flush();
+            if (writer != null) writer.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
+
+    public boolean isAsync() { return asyncLog != null; }
+
+    /**
+     * The fileWriter of an asynchronous LogWriter. It never writes to the file itself, so anything
+     * written to it is added to the AsyncLog and ends up in the file in order with the logged lines.
+     */
+    private static class AsyncFileWriter extends FileWriter {
+        private final AsyncLog asyncLog;
+
+        private AsyncFileWriter(FileDescriptor fd, AsyncLog asyncLog) {
+            super(fd);
+            this.asyncLog = asyncLog;
+        }
+
+        @Override
+        public void write(int c) {
+            asyncLog.write(String.valueOf((char) c));
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            asyncLog.write(CharBuffer.wrap(chars, offset, length));
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            asyncLog.write(str.substring(offset, offset + length));
+        }
+
+        @Override
+        public Writer append(CharSequence chars) {
+            asyncLog.write(String.valueOf(chars));
+            return this;
+        }
+
+        @Override
+        public Writer append(CharSequence chars, int start, int end) {
+            asyncLog.write(String.valueOf(chars).substring(start, end));
+            return this;
+        }
+
+        @Override
+        public void flush() {
+            asyncLog.flush();
+        }
+
+        @Override
+        public void close() {
+            asyncLog.close();
+        }
+    }
 }
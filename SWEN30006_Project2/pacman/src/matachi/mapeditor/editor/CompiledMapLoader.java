@@ -0,0 +1,202 @@
+package matachi.mapeditor.editor;
+
+import matachi.mapeditor.grid.Grid;
+import matachi.mapeditor.grid.GridModel;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * CompiledMapLoader loads and saves maps in a compact binary format, which can be loaded without
+ * parsing any XML. A compiled map is a header, a table of the tile names it uses, and then one
+ * byte per cell, row by row, indexing into that table:
+ * <pre>
+ *     int    MAGIC ("PMAP")
+ *     byte   VERSION
+ *     int    width
+ *     int    height
+ *     byte   number of tile names
+ *     UTF    tile name (repeated)
+ *     byte   tile name index (width * height times)
+ * </pre>
+ * Tile names are matched to TileManager's tiles when loading, the same way GridModelLoader does.
+ */
+public class CompiledMapLoader {
+    public static final String EXTENSION = "pmap";
+    private static final int MAGIC = 0x504D4150;
+    private static final byte VERSION = 1;
+
+    // The number of tile names is written as a single unsigned byte
+    private static final int MAX_TILE_NAMES = 255;
+
+    // Larger files are memory mapped instead of read
+    private static final long MAP_THRESHOLD = 64 * 1024;
+
+    /**
+     * Generates a grid model based on the given compiled map file
+     * @param mapFile compiled map file
+     * @return grid model, or null if the file can't be read or isn't a compiled map
+     */
+    public static Grid createModel(File mapFile) {
+        if (!mapFile.canRead() || !mapFile.exists())
+            return null;
+
+        try (FileChannel channel = FileChannel.open(mapFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer;
+            if (channel.size() >= MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } else {
+                buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) break;
+                }
+                buffer.flip();
+            }
+            return readModel(buffer);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    // Files without the compiled map header are left for the caller to report, without a trace
+    private static Grid readModel(ByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES + 1 || buffer.getInt() != MAGIC || buffer.get() != VERSION)
+            return null;
+
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+
+        // Work out the character of each tile name once
+        TileManager tileManager = TileManager.getInstance();
+        char[] tileChars = new char[Byte.toUnsignedInt(buffer.get())];
+        for (int i = 0; i < tileChars.length; i++) {
+            byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+            Character tileChar = tileManager.getChar(new String(name, StandardCharsets.UTF_8));
+
+            // Unknown tiles are left as the default tile, as GridModelLoader does
+            tileChars[i] = tileChar == null ? tileManager.getDefaultChar() : tileChar;
+        }
+
+        char[][] map = new char[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                map[y][x] = tileChars[Byte.toUnsignedInt(buffer.get())];
+            }
+        }
+        return new GridModel(map, tileManager.getDefaultChar());
+    }
+
+    /**
+     * Saves a compiled map file based on the provided model
+     * @param selectedFile file to save to
+     * @param gridModel model to save
+     * @throws IOException if the file couldn't be written
+     * @throws IllegalArgumentException if the map uses more different tiles than can be compiled
+     */
+    public static void saveModel(File selectedFile, Grid gridModel) throws IOException {
+        int width = gridModel.getWidth();
+        int height = gridModel.getHeight();
+
+        // Give each tile name used by the map an index
+        ArrayList<String> tileNames = new ArrayList<String>();
+        HashMap<Character, Integer> char2Index = new HashMap<Character, Integer>();
+        byte[] cells = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                char tileChar = gridModel.getTile(x, y);
+                Integer index = char2Index.get(tileChar);
+                if (index == null) {
+                    index = tileNames.size();
+                    char2Index.put(tileChar, index);
+                    tileNames.add(TileManager.getInstance().getTile(tileChar).getTileName());
+                }
+                cells[y * width + x] = (byte) index.intValue();
+            }
+        }
+        if (tileNames.size() > MAX_TILE_NAMES)
+            throw new IllegalArgumentException("Too many different tiles to compile: " + tileNames.size());
+
+        try (DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(selectedFile)))) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeInt(width);
+            output.writeInt(height);
+            output.writeByte(tileNames.size());
+            for (String tileName : tileNames) {
+                output.writeUTF(tileName);
+            }
+            output.write(cells);
+        }
+    }
+
+    /**
+     * Converts an XML map file into a compiled map file
+     * @param xmlFile map file to convert
+     * @param compiledFile file to save the compiled map to
+     * @return true if the map was converted, else false
+     */
+    public static boolean compile(File xmlFile, File compiledFile) {
+        Grid grid = GridModelLoader.createModel(xmlFile);
+        if (grid == null) return false;
+
+        try {
+            saveModel(compiledFile, grid);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * @param mapFile map file
+     * @return true if the file has the compiled map extension, else false
+     */
+    public static boolean isCompiledMap(File mapFile) {
+        return mapFile.getName().endsWith("." + EXTENSION);
+    }
+
+    /**
+     * Converts XML map files into compiled map files, saved next to them with the compiled
+     * map extension. Takes any number of map files or folders of map files.
+     * @param args map files or folders to convert
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: CompiledMapLoader <map.xml | folder>...");
+            System.exit(1);
+        }
+
+        for (String arg : args) {
+            File file = new File(arg);
+            File[] mapFiles = file.isDirectory() ? file.listFiles() : new File[] { file };
+            if (mapFiles == null) continue;
+
+            for (File mapFile : mapFiles) {
+                String fileName = mapFile.getName();
+                if (!mapFile.isFile() || !fileName.endsWith(".xml"))
+                    continue;
+
+                File compiledFile = new File(mapFile.getParentFile(),
+                        fileName.substring(0, fileName.length() - ".xml".length()) + "." + EXTENSION);
+                if (compile(mapFile, compiledFile))
+                    System.out.println(mapFile + " -> " + compiledFile);
+                else
+                    System.err.println("Could not convert " + mapFile);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package matachi.mapeditor.editor;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
 import java.io.File;
 import java.util.Properties;
 
@@ -38,6 +39,7 @@ public class Controller implements ActionListener, GUIInformation {
 	private static final int DEFAULT_MAP_WIDTH = 20;
 	private static final int DEFAULT_MAP_HEIGHT = 11;
 	private static final String DEFAULT_PROPERTIES_PATH = "pacman/properties/test.properties";
+	private static final File UNSAVED_MAP_FILE = new File("untitled.xml");
 	private Grid gridModel;
 	private int gridWidth;
 	private int gridHeight;
@@ -47,6 +49,12 @@ public class Controller implements ActionListener, GUIInformation {
 	private View view;
 	private EditorErrorCallback editorErrorCallback;
 
+	/**
+	 * Checks the map as it's edited, and the file its errors are reported against.
+	 */
+	private IncrementalMapValidator mapValidator;
+	private File mapFile;
+
 	/**
 	 * Construct the controller.
 	 */
@@ -75,9 +83,12 @@ public class Controller implements ActionListener, GUIInformation {
 
 			GameRunner gameRunner = new GameRunner(file, editorErrorCallback, DEFAULT_PROPERTIES_PATH);
 
-			// If the game isn't valid return to default editor
+			// If a level isn't valid load it, or if the folder isn't valid return to default editor
 			if (!gameRunner.validateGame()) {
-				init(DEFAULT_MAP_WIDTH, DEFAULT_MAP_HEIGHT);
+				if (gameRunner.getCurrentMapFile() != null)
+					init(gameRunner.getCurrentMapFile());
+				else
+					init(DEFAULT_MAP_WIDTH, DEFAULT_MAP_HEIGHT);
 				return;
 			}
 
@@ -99,12 +110,13 @@ public class Controller implements ActionListener, GUIInformation {
 		this.camera = new GridCamera(gridModel, gridModel.getWidth(), gridModel.getHeight());
 		this.gridView = new GridView(this, camera, TileManager.getInstance().getTiles()); // Every tile is 30x30 pixels
 		this.view = new View(this, camera, gridView, TileManager.getInstance().getTiles());
+		initValidator(UNSAVED_MAP_FILE);
 	}
 
 	public void init(File mapFile) {
 
 		// Create model based on map File
-		this.gridModel = GridModelLoader.createModel(mapFile);
+		this.gridModel = MapCache.getInstance().getModel(mapFile);
 		GameMapValidator gameMapValidator = new GameMapValidator(mapFile, editorErrorCallback);
 		gameMapValidator.validateMap();
 		// Set Grid Width and Height
@@ -119,6 +131,24 @@ public class Controller implements ActionListener, GUIInformation {
 
 		// Create a new View
 		this.view = new View(this, camera, gridView, TileManager.getInstance().getTiles());
+		initValidator(mapFile);
+	}
+
+	/**
+	 * Starts checking the current model as it's edited, showing its errors in the view.
+	 * The model is only checked in full once, after which each change only updates the errors.
+	 */
+	private void initValidator(File mapFile) {
+		this.mapFile = mapFile;
+		this.mapValidator = new IncrementalMapValidator(gridModel);
+
+		// Added after the validator, so it sees each change first
+		gridModel.addPropertyChangeListener(this::showErrors);
+		view.setErrors(mapValidator.getErrors(mapFile));
+	}
+
+	private void showErrors(PropertyChangeEvent evt) {
+		view.setErrors(mapValidator.getErrors(mapFile));
 	}
 
 
@@ -178,6 +208,9 @@ public class Controller implements ActionListener, GUIInformation {
 		if (chooser.showSaveDialog(null) == JFileChooser.APPROVE_OPTION) {
 			File savedFile = chooser.getSelectedFile();
 			GridModelLoader.saveModel(savedFile, gridModel);
+			MapCache.getInstance().putModel(savedFile, gridModel);
+			mapFile = savedFile;
+			view.setErrors(mapValidator.getErrors(mapFile));
 			GameMapValidator gameMapValidator = new GameMapValidator(savedFile, editorErrorCallback);
 			gameMapValidator.validateMap();
 		}
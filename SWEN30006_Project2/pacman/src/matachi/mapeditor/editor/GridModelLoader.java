@@ -6,14 +6,20 @@ import matachi.mapeditor.grid.Grid;
 import matachi.mapeditor.grid.GridModel;
 import org.jdom.Document;
 import org.jdom.Element;
-import org.jdom.input.SAXBuilder;
 import org.jdom.output.Format;
 import org.jdom.output.XMLOutputter;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.List;
+import java.io.InputStream;
+import java.util.Arrays;
 
 /**
  * GridModelLoader is a commander that provides global functionality to load and save map files,
@@ -22,39 +28,105 @@ import java.util.List;
 public class GridModelLoader {
 
     /**
-     * Generates a grid model based on the given file
+     * Generates a grid model based on the given file. The file is streamed, and each cell
+     * is put straight into the model's map as it is read, so no document is built.
      * @param mapFile
      * @return
      */
     public static Grid createModel(File mapFile) {
+        if (!mapFile.canRead() || !mapFile.exists())
+            return null;
+
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
 
-        Document document = buildDocument(mapFile);
-        Element rootNode = document.getRootElement();
-        List sizeList = rootNode.getChildren("size");
-        Element sizeElem = (Element) sizeList.get(0);
-        int height = Integer.parseInt(sizeElem.getChildText("height"));
-        int width = Integer.parseInt(sizeElem.getChildText("width"));
-
-        GridModel output = new GridModel(width, height, TileManager.getInstance().getDefaultChar());
-
-        List rows = rootNode.getChildren("row");
-        for (int y = 0; y < rows.size(); y++) {
-            Element cellsElem = (Element) rows.get(y);
-            List cells = cellsElem.getChildren("cell");
-
-            for (int x = 0; x < cells.size(); x++) {
-                Element cell = (Element) cells.get(x);
-                String cellValue = cell.getText();
-
-                for (Tile tile : TileManager.getInstance().getTiles()) {
-                    if (tile.getTileName().equalsIgnoreCase(cellValue)) {
-                        output.setTile(x, y, tile.getCharacter());
-                        break;
-                    }
+        try (InputStream input = new BufferedInputStream(new FileInputStream(mapFile))) {
+            XMLStreamReader reader = factory.createXMLStreamReader(input);
+            try {
+                return readModel(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads <level><size><width/><height/></size><row><cell/>...</row>...</level>. As with the
+     * whole document, only the first size and the direct children of level and of each row count,
+     * and cells naming no known tile are left as the default tile.
+     * @param reader reader positioned at the start of the document
+     * @return
+     * @throws XMLStreamException
+     */
+    private static Grid readModel(XMLStreamReader reader) throws XMLStreamException {
+        TileManager tileManager = TileManager.getInstance();
+        char defaultChar = tileManager.getDefaultChar();
+        StringBuilder text = new StringBuilder();
+        String width = null;
+        String height = null;
+        boolean isInSize = false;
+        char[][] map = null;
+        int depth = 0;
+        int x = 0;
+        int y = -1;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                text.setLength(0);
+                String name = reader.getLocalName();
+
+                if (depth == 2 && name.equals("size")) {
+                    isInSize = map == null && width == null;
+                } else if (depth == 2 && name.equals("row")) {
+                    if (map == null)
+                        map = createMap(width, height, defaultChar);
+                    y++;
+                    x = 0;
                 }
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                String name = reader.getLocalName();
+
+                if (depth == 3 && isInSize && name.equals("width") && width == null) {
+                    width = text.toString();
+                } else if (depth == 3 && isInSize && name.equals("height") && height == null) {
+                    height = text.toString();
+                } else if (depth == 2 && name.equals("size")) {
+                    isInSize = false;
+                } else if (depth == 3 && map != null && y >= 0 && name.equals("cell")) {
+                    Character tileChar = tileManager.getChar(text.toString());
+                    if (tileChar != null)
+                        map[y][x] = tileChar;
+                    x++;
+                }
+                text.setLength(0);
+                depth--;
             }
         }
-        return output;
+
+        if (map == null)
+            map = createMap(width, height, defaultChar);
+        return new GridModel(map, defaultChar);
+    }
+
+    // The size has to come before the rows, so the map can be filled in as the rows are read
+    private static char[][] createMap(String width, String height, char defaultChar) {
+        if (width == null || height == null)
+            throw new IllegalStateException("Map size must come before its rows");
+
+        char[][] map = new char[Integer.parseInt(height)][Integer.parseInt(width)];
+        for (char[] row : map) {
+            Arrays.fill(row, defaultChar);
+        }
+        return map;
     }
 
     /**
@@ -96,24 +168,4 @@ public class GridModelLoader {
         } catch (IOException e) {
         }
     }
-
-    /**
-     * Internal Document creation function
-     * @param mapFile
-     * @return
-     */
-    private static Document buildDocument(File mapFile) {
-        if (!mapFile.canRead() || !mapFile.exists())
-            return null;
-
-        SAXBuilder builder = new SAXBuilder();
-
-        try {
-            return (Document) builder.build(mapFile);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-
-        return null;
-    }
 }
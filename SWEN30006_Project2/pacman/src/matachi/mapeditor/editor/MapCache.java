@@ -0,0 +1,117 @@
+package matachi.mapeditor.editor;
+
+import matachi.mapeditor.grid.Grid;
+import matachi.mapeditor.grid.GridModel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * MapCache keeps the tiles of recently loaded map files, so that loading the same file again
+ * copies the tiles instead of parsing the file. A file is known by its path, last modified time
+ * and length, so a file that has been changed since it was cached is parsed again. The least
+ * recently used maps are dropped once more than the capacity are cached.
+ */
+public class MapCache {
+    private static final int DEFAULT_CAPACITY = 64;
+    private static MapCache instance;
+    private final LinkedHashMap<String, CachedMap> cachedMaps;
+
+    /**
+     * Constructs an empty MapCache
+     * @param capacity maximum number of maps kept
+     */
+    public MapCache(int capacity) {
+        this.cachedMaps = new LinkedHashMap<String, CachedMap>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedMap> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public static synchronized MapCache getInstance() {
+        if (instance == null) {
+            instance = new MapCache(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the grid model of a map file, either compiled or XML. The model returned is a copy,
+     * so it can be changed without affecting the cache.
+     * @param mapFile map file to load
+     * @return grid model, or null if the file couldn't be loaded
+     */
+    public Grid getModel(File mapFile) {
+        String key = keyOf(mapFile);
+        long lastModified = mapFile.lastModified();
+        long length = mapFile.length();
+
+        synchronized (this) {
+            CachedMap cachedMap = cachedMaps.get(key);
+            if (cachedMap != null && cachedMap.lastModified == lastModified && cachedMap.length == length)
+                return cachedMap.copyModel();
+        }
+
+        // Parse without holding the lock, so other maps can be loaded at the same time
+        Grid grid = CompiledMapLoader.isCompiledMap(mapFile)
+                ? CompiledMapLoader.createModel(mapFile)
+                : GridModelLoader.createModel(mapFile);
+        if (grid == null) return null;
+
+        synchronized (this) {
+            cachedMaps.put(key, new CachedMap(grid, lastModified, length));
+        }
+        return grid;
+    }
+
+    /**
+     * Caches the grid model just saved to a map file, so it doesn't have to be parsed again
+     * @param mapFile map file the model was saved to
+     * @param grid grid model that was saved
+     */
+    public void putModel(File mapFile, Grid grid) {
+        CachedMap cachedMap = new CachedMap(grid, mapFile.lastModified(), mapFile.length());
+        synchronized (this) {
+            cachedMaps.put(keyOf(mapFile), cachedMap);
+        }
+    }
+
+    public synchronized void clear() { cachedMaps.clear(); }
+
+    private static String keyOf(File mapFile) {
+        try {
+            return mapFile.getCanonicalPath();
+        } catch (IOException e) {
+            return mapFile.getAbsolutePath();
+        }
+    }
+
+    /**
+     * Tiles of a map file, as they were when the file had the given last modified time and length
+     */
+    private static class CachedMap {
+        private final char[][] map;
+        private final char defaultChar;
+        private final long lastModified;
+        private final long length;
+
+        private CachedMap(Grid grid, long lastModified, long length) {
+            this.map = grid.getMap();
+            this.defaultChar = TileManager.getInstance().getDefaultChar();
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        private Grid copyModel() {
+            char[][] copy = new char[map.length][];
+            for (int y = 0; y < map.length; y++) {
+                copy[y] = map[y].clone();
+            }
+            return new GridModel(copy, defaultChar);
+        }
+    }
+}
@@ -25,12 +25,14 @@ public class TileManager {
 	private static TileManager instance;
 	private TreeMap<Character, Tile> char2TileMap;
 	private HashMap<Tile, Character> tile2CharMap;
+	private HashMap<String, Character> name2CharMap;
 	private Tile defaultTile;
 	private TileManager() {
 
 		// Essentially, make a tile map
 		char2TileMap = createC2TMap(folderPath);
 		tile2CharMap = createT2CMap(char2TileMap);
+		name2CharMap = createN2CMap(char2TileMap);
 	}
 
 	private TreeMap<Character, Tile> createC2TMap(final String folderPath) {
@@ -66,7 +68,26 @@ public class TileManager {
 		return map;
 	}
 
-	public static TileManager getInstance() {
+	/**
+	 * Map files name tiles regardless of case, so every tile is put under its exact name as well as
+	 * its lower case name. Where names clash, the first tile in character order wins.
+	 */
+	private HashMap<String, Character> createN2CMap(TreeMap<Character, Tile> tMap) {
+
+		HashMap<String, Character> map = new HashMap<String, Character>();
+		for (Map.Entry<Character, Tile> entry : tMap.entrySet()) {
+			String tileName = entry.getValue().getTileName();
+			map.putIfAbsent(tileName.toLowerCase(Locale.ROOT), entry.getKey());
+		}
+		for (Map.Entry<Character, Tile> entry : tMap.entrySet()) {
+			String tileName = entry.getValue().getTileName();
+			map.putIfAbsent(tileName, map.get(tileName.toLowerCase(Locale.ROOT)));
+		}
+
+		return map;
+	}
+
+	public static synchronized TileManager getInstance() {
 		if (instance == null) {
 			instance = new TileManager();
 		}
@@ -80,6 +101,17 @@ public class TileManager {
 	public char getChar(Tile tile) {
 		return tile2CharMap.get(tile).charValue();
 	}
+	/**
+	 * Looks up the character of the tile with the given name, ignoring case
+	 * @param tileName name of the tile
+	 * @return character of the tile, or null if there is no such tile
+	 */
+	public Character getChar(String tileName) {
+		Character tileChar = name2CharMap.get(tileName);
+		if (tileChar == null)
+			tileChar = name2CharMap.get(tileName.toLowerCase(Locale.ROOT));
+		return tileChar;
+	}
 	public Tile getTile(char tileChar) {
 		return char2TileMap.get(tileChar);
 	}
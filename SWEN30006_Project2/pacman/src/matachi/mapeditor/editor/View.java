@@ -12,6 +12,8 @@ import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.border.Border;
 
@@ -44,6 +46,11 @@ public class View {
 	private JTextField txtWidth;
 	private JTextField txtHeight;
 
+	/**
+	 * Errors in the map, kept up to date while editing.
+	 */
+	private JTextArea txtErrors;
+
 	/**
 	 * Constructs the View.
 	 * 
@@ -95,6 +102,12 @@ public class View {
 		right.add(saveButton);
 		right.add(loadButton);
 
+		txtErrors = new JTextArea(8, 30);
+		txtErrors.setEditable(false);
+		txtErrors.setLineWrap(true);
+		txtErrors.setWrapStyleWord(true);
+		right.add(new JScrollPane(txtErrors));
+
 		/** The top panel, that shows coordinates and stuff. */
 		CameraInformationLabel cameraInformationLabel = new CameraInformationLabel(
 				camera);
@@ -163,6 +176,10 @@ public class View {
 		txtHeight.setText(height+"");
 	}
 
+	public void setErrors(String errors) {
+		txtErrors.setText(errors);
+	}
+
 	public void close() {
 		frame.dispose();;
 	}
@@ -71,8 +71,9 @@ public class GridModel implements Grid {
 	 * {@inheritDoc}
 	 */
 	public void setTile(int x, int y, char c) {
+		char oldChar = map[y][x];
 		map[y][x] = c;
-		firePropertyChange();
+		fireTileChange(y * getWidth() + x, oldChar, c);
 	}
 	
 	/**
@@ -187,4 +188,16 @@ public class GridModel implements Grid {
 	private void firePropertyChange() {
 		changeSupport.firePropertyChange("model", false, true);
 	}
+
+	/**
+	 * Announces a single tile changing, so listeners don't have to look
+	 * through the whole map for it.
+	 * @param index The tile's index, y * width + x.
+	 * @param oldChar The character that was on the tile.
+	 * @param newChar The character now on the tile.
+	 */
+	private void fireTileChange(int index, char oldChar, char newChar) {
+		changeSupport.fireIndexedPropertyChange("tile", index,
+				Character.valueOf(oldChar), Character.valueOf(newChar));
+	}
 }
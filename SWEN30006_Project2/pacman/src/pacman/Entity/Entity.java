@@ -2,21 +2,36 @@ package pacman.Entity;
 
 import ch.aplu.jgamegrid.Actor;
 import ch.aplu.jgamegrid.Location;
+import gamemap.GameMap;
 import pacman.Game;
+import pacman.utility.CellHistory;
+import pacman.utility.HeadlessActor;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * The Entity class is managed and created by the game class, requiring a game to be passed through its constructor.
- * Provides functionality used by both the Game and subclasses e.g. randomiser, visitedList, setSeed(), randomWalk()
+ * Provides functionality used by both the Game and subclasses e.g. randomiser, visitedList, setRandomiser(), randomWalk()
  * etc.
  */
-public abstract class Entity extends Actor {
-    protected Random randomiser = new Random();
+public abstract class Entity extends HeadlessActor {
+    protected SplittableRandom randomiser = new SplittableRandom();
     protected Game game;
-    private ArrayList<Location> visitedList = new ArrayList<Location>();
-    private int LIST_LENGTH = 10;
+    private static final int DEFAULT_VISITED_LENGTH = 9;
+    private CellHistory visitedCells = new CellHistory(DEFAULT_VISITED_LENGTH);
+
+    // Offsets of the cell moved to when facing each neighbour slot (north, east, south, west).
+    // Like Location.getAdjacentLocation(), getNextMoveLocation() moves several cells at once on large maps
+    private static final int[] SLOT_OFFSET_X = {0, 1, 0, -1};
+    private static final int[] SLOT_OFFSET_Y = {-1, 0, 1, 0};
+    private static final int LARGE_MAP_CELLS = 2500;
+    private static final int LARGE_MAP_STEP = 5;
+
+    // Quarter turns clockwise, for getMoveCandidate()
+    protected static final int TURN_NONE = 0;
+    protected static final int TURN_RIGHT = 1;
+    protected static final int TURN_BACK = 2;
+    protected static final int TURN_LEFT = -1;
 
     /**
      * Constructs an entity from the provided game.
@@ -26,7 +41,7 @@ public abstract class Entity extends Actor {
      * @param nbSprites number of image(s)
      */
     protected Entity(Game game, Boolean isRotateable, String spriteFileName, int nbSprites) {
-        super(isRotateable, spriteFileName, nbSprites);
+        super(isRotateable, spriteFileName, game.isHeadless() ? 0 : nbSprites);
         this.game = game;
     }
 
@@ -36,16 +51,48 @@ public abstract class Entity extends Actor {
      * @param spriteFileName filename to image
      */
     protected Entity(Game game, String spriteFileName) {
-        super(spriteFileName);
+        super(false, spriteFileName, game.isHeadless() ? 0 : 1);
         this.game = game;
     }
 
     /**
-     * Sets the seed of the Entity's randomiser
-     * @param seed integer seed
+     * Gives the Entity its own stream of random numbers. Nothing else should use the stream, so the
+     * Entity moves the same whichever thread it is updated on.
+     * @param randomiser randomiser split off from the game's seed
      */
-    public void setSeed(int seed) {
-        randomiser.setSeed(seed);
+    public void setRandomiser(SplittableRandom randomiser) {
+        this.randomiser = randomiser;
+    }
+
+    @Override
+    public Location getNextMoveLocation() {
+        if (gameGrid != null) return super.getNextMoveLocation();
+
+        // Same rule as Actor.getNextMoveLocation(), which depends on the size of the GameGrid
+        GameMap gameMap = game.getGameMap();
+        if (gameMap.getMapWidth() * gameMap.getMapHeight() <= LARGE_MAP_CELLS)
+            return getLocation().getNeighbourLocation(getDirection());
+        return getLocation().getAdjacentLocation(getDirection());
+    }
+
+    /**
+     * Counts down the Entity's slow down the same way a GameGrid does, for entities
+     * simulated by a headless game.
+     * @return true if the Entity should act this simulation cycle, else false
+     */
+    public boolean advanceStepCount() {
+        decreaseStepCount();
+        if (getStepCount() != 0)
+            return false;
+        initStepCount();
+        return true;
+    }
+
+    /**
+     * @return true if the Entity is part of a GameGrid that is paused, else false
+     */
+    protected boolean isGamePaused() {
+        return gameGrid != null && gameGrid.isPaused();
     }
 
     /**
@@ -76,15 +123,22 @@ public abstract class Entity extends Actor {
 
     }
 
+    /**
+     * Sets how many of the most recently visited locations the Entity remembers, forgetting
+     * any it has visited so far
+     * @param length number of locations remembered
+     */
+    public void setVisitedLength(int length) {
+        visitedCells = new CellHistory(length);
+    }
+
     /**
      * Adds location to a fixed-sized list of previously visited locations
      * @param location visited location
      */
     protected void addVisitedList(Location location)
     {
-        visitedList.add(location);
-        if (visitedList.size() == LIST_LENGTH)
-            visitedList.remove(0);
+        visitedCells.add(toCell(location));
     }
 
     /**
@@ -94,65 +148,71 @@ public abstract class Entity extends Actor {
      */
     protected boolean isVisited(Location location)
     {
-        for (Location loc : visitedList)
-            if (loc.equals(location))
-                return true;
-        return false;
+        return visitedCells.contains(toCell(location));
+    }
+
+    private int toCell(Location location) {
+        GameMap gameMap = game.getGameMap();
+        if (!gameMap.isInMap(location))
+            return CellHistory.NO_CELL;
+        return gameMap.toIndex(location.x, location.y);
     }
 
     /**
-     * Generates a random location to walk to.
+     * Generates a random location to walk to. The Entity isn't changed, so this can be worked
+     * out away from the thread drawing it.
      * @return random, walkable location
      */
     protected Location randomWalk() {
-        double initialDirection = getDirection();
+        GameMap gameMap = game.getGameMap();
+        Location location = getLocation();
+        int slot = toNeighbourSlot(getDirection());
+
         // Randomly select left or right turn
-        int sign = randomiser.nextDouble() < 0.5 ? 1 : -1;
-
-        // Turn left or right randomly
-        setDirection(initialDirection);
-        turn(sign * 90);
-        Location next = getNextMoveLocation();
-
-        if (game.getGameMap().isWalkable(next)) {
-            setDirection(initialDirection);
-            return next;
-        }
-
-        // Try to go forwards
-        setDirection(initialDirection);
-        next = getNextMoveLocation();
-
-        if (game.getGameMap().isWalkable(next)) {
-            setDirection(initialDirection);
-            return next;
-        }
-
-        // Try the other turning direction
-        setDirection(initialDirection);
-        turn(-sign * 90);
-        next = getNextMoveLocation();
-
-        if (game.getGameMap().isWalkable(next)) {
-            setDirection(initialDirection);
-            return next;
-        }
-
-        // Try to go backwards
-        setDirection(initialDirection);
-        turn(180);
-        next = getNextMoveLocation();
-
-
-        // This statement should always be true given
-        // the maze
-        if (game.getGameMap().isWalkable(next)) {
-            setDirection(initialDirection);
-            return next;
-        }
-
-        // Somehow we are in a box
-        setDirection(initialDirection);
-        return getLocation();
+        int turn = randomiser.nextDouble() < 0.5 ? TURN_RIGHT : TURN_LEFT;
+
+        // Try to turn that way, then go forwards, then turn the other way, then go backwards
+        int next = getMoveCandidate(location, slot, turn);
+        if (next == GameMap.NO_CELL || !gameMap.isWalkable(next))
+            next = getMoveCandidate(location, slot, TURN_NONE);
+        if (next == GameMap.NO_CELL || !gameMap.isWalkable(next))
+            next = getMoveCandidate(location, slot, -turn);
+        if (next == GameMap.NO_CELL || !gameMap.isWalkable(next))
+            next = getMoveCandidate(location, slot, TURN_BACK);
+
+        // Backwards should always be walkable given the maze, unless we are somehow in a box
+        if (next == GameMap.NO_CELL || !gameMap.isWalkable(next))
+            return location;
+        return gameMap.toLocation(next);
+    }
+
+    /**
+     * Finds the cell the Entity would move to from a location after turning, the same way as
+     * getNextMoveLocation(), without changing the Entity
+     * @param from location to move from
+     * @param slot neighbour slot being faced, see toNeighbourSlot()
+     * @param quarterTurns number of quarter turns clockwise to make first, negative to turn anticlockwise
+     * @return index of the cell moved to, or GameMap.NO_CELL if it's off the map
+     */
+    protected int getMoveCandidate(Location from, int slot, int quarterTurns) {
+        GameMap gameMap = game.getGameMap();
+        int direction = (slot + quarterTurns) & 3;
+        int step = gameMap.getMapWidth() * gameMap.getMapHeight() <= LARGE_MAP_CELLS ? 1 : LARGE_MAP_STEP;
+        int x = from.x + SLOT_OFFSET_X[direction] * step;
+        int y = from.y + SLOT_OFFSET_Y[direction] * step;
+
+        if (x < 0 || x >= gameMap.getMapWidth() || y < 0 || y >= gameMap.getMapHeight())
+            return GameMap.NO_CELL;
+        return gameMap.toIndex(x, y);
+    }
+
+    /**
+     * Converts an Actor direction, in degrees clockwise from east, to the closest of the
+     * GameMap's neighbour slots (north, east, south, west)
+     * @param direction direction in degrees
+     * @return neighbour slot
+     */
+    protected static int toNeighbourSlot(double direction) {
+        return ((int) Math.round(direction / 90) + 1) & 3;
     }
 }
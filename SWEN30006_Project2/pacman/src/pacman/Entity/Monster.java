@@ -4,9 +4,7 @@ import ch.aplu.jgamegrid.Location;
 import pacman.Game;
 import pacman.Item.ItemEventCode;
 import pacman.Item.ItemEventListener;
-
-import java.util.Timer;
-import java.util.TimerTask;
+import pacman.utility.GameClock;
 
 /**
  * Monsters chase PacMan down. Classes that inherit from
@@ -17,6 +15,7 @@ public abstract class Monster extends Entity {
     private static final int TOTAL_TIME_FROZEN = 3;
     private final MonsterType type;
     private boolean isPaused= false;
+    private int pausedUntilTick = 0;
 
     /**
      * Constructs a Monster to be used in the provided game, with a MonsterType
@@ -30,15 +29,45 @@ public abstract class Monster extends Entity {
     }
     public void act()
     {
+        if (step())
+            game.getGameCallback().monsterLocationChanged(this);
+    }
+
+    /**
+     * Moves the monster for a single act, leaving its new location to be logged by the caller
+     * @return true if the monster acted, false if it's paused
+     */
+    boolean step() {
+        Location next = planStep();
+        if (next == null)
+            return false;
+        makeMove(next);
+        return true;
+    }
+
+    /**
+     * Works out where the monster will move this act without moving it. Only the monster itself,
+     * PacMan and the walls of the map are looked at, so monsters can plan their steps in parallel
+     * while nothing is moving.
+     * @return cell to move to, or null if the monster is paused
+     */
+    Location planStep() {
 
         // Can't move when frozen
-        if (isPaused || gameGrid.isPaused()) {
-            return;
+        if (isPaused || isGamePaused()) {
+            return null;
         }
 
         // Monsters move one cell per tick
         // walkApproach() is called at least once a tick
-        Location next = walkApproach(false);
+        return walkApproach(false);
+    }
+
+    /**
+     * Moves the monster to the cell planned by planStep()
+     * @param next cell to move to
+     */
+    void makeMove(Location next) {
 
         // Maintain a list of previously visited locations
         addVisitedList(next);
@@ -54,7 +83,6 @@ public abstract class Monster extends Entity {
             setHorzMirror(false);
         else
             setHorzMirror(true);
-        game.getGameCallback().monsterLocationChanged(this);
     }
 
     /**
@@ -66,18 +94,27 @@ public abstract class Monster extends Entity {
      */
     protected abstract Location walkApproach(boolean manualCall);
 
+    /**
+     * Pauses the monster for a period of game time. Pausing an already paused monster
+     * only extends the pause.
+     * @param seconds number of seconds to stay paused
+     */
     protected void setStatePaused(int seconds) {
+        GameClock clock = game.getClock();
+        int ticks = clock.secondsToTicks(seconds);
+        this.isPaused = true;
+        this.pausedUntilTick = Math.max(pausedUntilTick, clock.getTick() + ticks);
+        clock.schedule(ticks, this::endPause);
+    }
+
+    // Only the latest pause to end unpauses the monster
+    private void endPause() {
+        if (game.getClock().getTick() >= pausedUntilTick)
+            this.isPaused = false;
+    }
+    public void setStatePaused() {
         this.isPaused = true;
-        Timer timer = new Timer(); // Instantiate Timer Object
-        int SECOND_TO_MILLISECONDS = 1000;
-        final Monster monster = this;
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                monster.isPaused = false;
-            }
-        }, seconds * SECOND_TO_MILLISECONDS);
+        this.pausedUntilTick = Integer.MAX_VALUE;
     }
-    public void setStatePaused() { this.isPaused = true; }
     public MonsterType getType() { return type; }
 }
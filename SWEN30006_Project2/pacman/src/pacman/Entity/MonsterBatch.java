@@ -0,0 +1,89 @@
+package pacman.Entity;
+
+import ch.aplu.jgamegrid.Location;
+
+import java.util.stream.IntStream;
+
+/**
+ * MonsterBatch acts for every monster of one type in a single pass over an array, instead of the
+ * monsters being acted on one at a time, and leaves logging their locations to the caller.
+ * Monsters act in the reverse of the order they were added, as they would in a GameGrid, and each
+ * keeps its own slow down and randomiser, so batching doesn't change how any monster moves.
+ * Each cycle happens in two phases. Every monster first works out its move, in parallel for large
+ * batches, and then the moves are made one at a time in the order the monsters act in. Monsters only
+ * plan against themselves, PacMan and the map's walls, which don't change until the moves are made,
+ * so the game plays out the same as when each monster plans and moves in turn.
+ */
+public class MonsterBatch {
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Smaller batches plan their moves faster on one thread
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+    private final MonsterType type;
+    private final int parallelThreshold;
+    private Monster[] monsters = new Monster[INITIAL_CAPACITY];
+    private int nbMonsters = 0;
+
+    // Move planned by each monster this cycle, or null if it isn't moving
+    private Location[] moves = new Location[INITIAL_CAPACITY];
+
+    /**
+     * Constructs an empty MonsterBatch
+     * @param type type of monster in the batch
+     * @param parallelThreshold smallest number of monsters whose moves are planned in parallel
+     */
+    public MonsterBatch(MonsterType type, int parallelThreshold) {
+        this.type = type;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Adds a monster to the batch
+     * @param monster monster of the batch's type
+     */
+    public void add(Monster monster) {
+        if (monster.getType() != type)
+            throw new IllegalArgumentException("Expected a " + type + " but got a " + monster.getType());
+        if (nbMonsters == monsters.length) {
+            Monster[] grown = new Monster[2 * monsters.length];
+            System.arraycopy(monsters, 0, grown, 0, nbMonsters);
+            monsters = grown;
+            moves = new Location[grown.length];
+        }
+        monsters[nbMonsters++] = monster;
+    }
+
+    /**
+     * Performs one simulation cycle for every monster in the batch whose slow down allows it to
+     * act, collecting the monsters that acted so their locations can be logged
+     * @param acted array to add the monsters that acted to, with room for every monster
+     * @param nbActed number of monsters already in acted
+     * @return number of monsters in acted, including the ones added
+     */
+    public int act(Monster[] acted, int nbActed) {
+        if (nbMonsters >= parallelThreshold) {
+            IntStream.range(0, nbMonsters).parallel().forEach(this::planMove);
+        } else {
+            for (int i = 0; i < nbMonsters; i++) {
+                planMove(i);
+            }
+        }
+
+        for (int i = nbMonsters - 1; i >= 0; i--) {
+            if (moves[i] != null) {
+                monsters[i].makeMove(moves[i]);
+                moves[i] = null;
+                acted[nbActed++] = monsters[i];
+            }
+        }
+        return nbActed;
+    }
+
+    private void planMove(int i) {
+        Monster monster = monsters[i];
+        moves[i] = monster.advanceStepCount() ? monster.planStep() : null;
+    }
+
+    public MonsterType getType() { return type; }
+    public int getNbMonsters() { return nbMonsters; }
+}
@@ -5,12 +5,14 @@ import pacman.Item.Item;
 import pacman.Item.ItemEventCode;
 import pacman.Item.ItemEventListener;
 import ch.aplu.jgamegrid.*;
+import gamemap.NearestItemIndex;
 import pathfinder.AutoPlayer;
 import pathfinder.PathObject;
 import pathfinder.PathObjectActorAdapter;
 
 import java.awt.event.KeyEvent;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * PacActor provides functionality and movement logic for PacMan, responding to input by users. It can also be
@@ -23,10 +25,13 @@ public class PacActor extends Entity implements ItemEventListener, GGKeyRepeatLi
     private static final String SPRITE_FILE_NAME = "pacman/sprites/pacpix.gif";
     private static final String EXPLOSION_EFFECT = "pacman/sprites/explosion3.gif";
     private int idSprite = 0;
-    private int nbPills = 0;
-    private int score = 0;
+    // Read by the thread running the game while the game thread updates them
+    private final AtomicInteger nbPills = new AtomicInteger();
+    private final AtomicInteger score = new AtomicInteger();
     private boolean isAuto = false;
     private boolean isAlive = true;
+    private boolean isNearestByPath = false;
+    private long nextHopIndexBudget = 0;
     private AutoPlayer autoPlayer;
 
     /**
@@ -41,11 +46,13 @@ public class PacActor extends Entity implements ItemEventListener, GGKeyRepeatLi
     public void start() {
 
         // If not set to auto, PacActor will respond to keyboard input
+        // A headless game has no keyboard, so PacActor will just stand still
         if (!isAuto) {
+            if (game.isHeadless()) return;
             gameGrid.addKeyRepeatListener(this);
             gameGrid.setKeyRepeatPeriod(KEY_REPEAT_PERIOD);
         } else {
-            autoPlayer = new AutoPlayer(game.getGameMap());
+            autoPlayer = new AutoPlayer(game.getGameMap(), nextHopIndexBudget);
 
 //            for (Monster monster : game.getActiveMonsters()) {
 //                autoPlayer.avoidPathObject(new PathObjectActorAdapter(monster));
@@ -62,7 +69,7 @@ public class PacActor extends Entity implements ItemEventListener, GGKeyRepeatLi
      */
     public void act()
     {
-        if (!isAlive || gameGrid.isPaused())
+        if (!isAlive || isGamePaused())
             return;
 
         show(idSprite);
@@ -72,7 +79,7 @@ public class PacActor extends Entity implements ItemEventListener, GGKeyRepeatLi
             moveInAutoMode();
         }
 
-        this.game.getGameCallback().pacManLocationChanged(getLocation(), score, nbPills);
+        this.game.getGameCallback().pacManLocationChanged(getLocation(), score.get(), nbPills.get());
     }
 
     /**
@@ -98,27 +105,13 @@ public class PacActor extends Entity implements ItemEventListener, GGKeyRepeatLi
      * @return "closest" item
      */
     private Item findClosestItem() {
-        int currentDistance = Integer.MAX_VALUE;
-        Item closestItem = null;
-
-        // Get array of pills and golds
-        ArrayList<Item> items = new ArrayList<Item>();
-        items.addAll(game.getGameMap().getPills());
-        items.addAll(game.getGameMap().getGold());
-
-        for (Item item: items) {
-            if (item.isConsumed())
-                continue;
-
-            Location itemLocation = item.getLocation();
-            int distanceToItem = getLocation().getDistanceTo(itemLocation);
-            if (distanceToItem < currentDistance) {
-                closestItem = item;
-                currentDistance = distanceToItem;
-            }
-        }
 
-        return closestItem;
+        // Only uneaten pills and gold are kept in the index, so finding the closest one doesn't
+        // mean looking through every item
+        NearestItemIndex itemIndex = game.getGameMap().getNearestItemIndex();
+        if (isNearestByPath)
+            return autoPlayer.findNearestItem(getLocation(), itemIndex);
+        return itemIndex.findNearest(getLocation());
     }
 
     /**
@@ -127,7 +120,7 @@ public class PacActor extends Entity implements ItemEventListener, GGKeyRepeatLi
     @Override
     public void keyRepeated(int keyCode)
     {
-        if (!isAlive || gameGrid.isPaused())
+        if (!isAlive || isGamePaused())
             return;
 
         Location next = null;
@@ -166,21 +159,23 @@ public class PacActor extends Entity implements ItemEventListener, GGKeyRepeatLi
         // PacActor will respond to most items by increasing nbPills and score. For ice, nothing happens
         switch(code) {
             case IEC_PILL_CONSUMED:
-                nbPills++;
-                score++;
+                nbPills.incrementAndGet();
+                score.incrementAndGet();
                 game.getGameCallback().pacManEatPillsAndItems(location, "pills");
                 break;
             case IEC_GOLD_CONSUMED:
-                nbPills++;
-                score += 5;
+                nbPills.incrementAndGet();
+                score.addAndGet(5);
                 game.getGameCallback().pacManEatPillsAndItems(location, "gold");
                 break;
             case IEC_ICE_CONSUMED:
                 game.getGameCallback().pacManEatPillsAndItems(location, "ice");
                 break;
         }
-        String title = game.getGameTitle() + " Current score: " + score;
-        gameGrid.setTitle(title);
+        if (!game.isHeadless()) {
+            String title = game.getGameTitle() + " Current score: " + score.get();
+            gameGrid.setTitle(title);
+        }
     }
 
     /**
@@ -199,9 +194,20 @@ public class PacActor extends Entity implements ItemEventListener, GGKeyRepeatLi
     private void onDeath() {
         this.hide();
         isAlive = false;
-        gameGrid.addActor(new Actor(EXPLOSION_EFFECT), getLocation());
+        if (!game.isHeadless())
+            gameGrid.addActor(new Actor(EXPLOSION_EFFECT), getLocation());
     }
     public boolean isAlive() { return isAlive; }
     public void setAuto(boolean auto) { this.isAuto = auto; }
-    public int getNbPills() { return nbPills; }
+    public void setNearestByPath(boolean nearestByPath) { this.isNearestByPath = nearestByPath; }
+
+    /**
+     * Sets how many bytes the auto player can use to remember the paths it finds. Each starting
+     * cell remembered takes 2 bytes per cell of the map, so small maps can remember every path.
+     * See NextHopIndex for when this is worth turning on.
+     * @param nextHopIndexBudget budget in bytes, 0 for the auto player to search every time
+     */
+    public void setNextHopIndexBudget(long nextHopIndexBudget) { this.nextHopIndexBudget = nextHopIndexBudget; }
+    public int getNbPills() { return nbPills.get(); }
+    public int getScore() { return score.get(); }
 }
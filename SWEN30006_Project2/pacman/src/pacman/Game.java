@@ -3,23 +3,32 @@
 package pacman;
 
 import ch.aplu.jgamegrid.*;
+import gamemap.CollisionListener;
 import gamemap.GameMap;
 import logger.GameCallback;
 import pacman.Entity.*;
+import pacman.Item.ItemEventCode;
+import pacman.Item.ItemEventListener;
+import pacman.utility.GameClock;
 
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Properties;
+import java.util.SplittableRandom;
 
 /**
  * Game class instantiates various entities and plays out a game
  * based on the given GameMap. Game manages collisions between monsters
- * and Pacman
+ * and Pacman, as the GameMap reports them. A game can either be played in a
+ * GameGrid window, or headless, where Game drives the entities itself from a
+ * deterministic tick loop.
  */
-public class Game
+public class Game implements CollisionListener, ItemEventListener
 {
   private static final String GAME_TITLE = "[PacMan in the TorusVerse]";
   private static final int SLOW_DOWN_FACTOR = 3;
+  private static final int END_OF_GAME_DELAY = 120;
+  private static final int MAX_HEADLESS_CYCLES = 100000;
   private PacActor pacActor;
   private GameCallback gameCallback;
   private Monster[] monsterArray;
@@ -27,46 +36,141 @@ public class Game
   private GameMap gameMap;
   private GameGrid gameGrid;
   private boolean isRunning = false;
+  private boolean isHeadless;
+  private volatile boolean isGameOver = false;
+  private volatile boolean isStopped = false;
+  private int maxPillsAndGold;
+
+  // Advanced once per simulation cycle, so its tick is the number of cycles simulated
+  private GameClock clock;
+
+  // Entities in the order GameGrid would call act() on them. Only used when headless
+  private ArrayList<Entity> actOrder = new ArrayList<Entity>();
+
+  // Monsters are acted on a type at a time when headless, before the other entities, as they're
+  // added after them. Also in the order GameGrid would act on them
+  private ArrayList<MonsterBatch> monsterBatches = new ArrayList<MonsterBatch>();
+  private int parallelThreshold = MonsterBatch.DEFAULT_PARALLEL_THRESHOLD;
+
+  // Monsters that moved this cycle, logged once every batch has moved
+  private Monster[] actedMonsters;
 
   /**
-   * Constructs a game, using the properties provided.
+   * Constructs a game, using the properties provided. The game is headless if the
+   * "Game.isHeadless" property is true, or if there is no display to show it on.
+   * The "Game.speed" property sets how many times faster than real time to play, or "max"
+   * to play as fast as possible, which headless games do by default. Games play out the
+   * same at any speed.
    * @param gameCallback  Used for testing and logging
    * @param properties Used for initialising the game-state
    */
   public Game(GameCallback gameCallback, Properties properties, GameMap gameMap) {
     this.gameCallback = gameCallback;
-    this.gameGrid = gameMap.createGameGrid();
     this.gameMap = gameMap;
+    this.isHeadless = isHeadless(properties);
+    this.clock = new GameClock(GameClock.parseSpeed(properties.getProperty("Game.speed"),
+            isHeadless ? GameClock.AS_FAST_AS_POSSIBLE : 1));
+
+    if (isHeadless) {
+      gameMap.placeOccupiers();
 
-    int seed = Integer.parseInt(properties.getProperty("seed"));
+      // How many monsters of a type it takes to plan their moves in parallel, e.g. 2147483647 never to
+      String parallelThreshold = properties.getProperty("MonsterBatch.parallelThreshold");
+      if (parallelThreshold != null && !parallelThreshold.isBlank())
+        this.parallelThreshold = Integer.parseInt(parallelThreshold.trim());
+    } else {
+      this.gameGrid = gameMap.createGameGrid();
+      this.gameGrid.addActListener(clock::advance);
+    }
+
+    // Each entity gets its own stream, split off in the order the entities are created,
+    // so a seed plays out the same however the entities are updated
+    SplittableRandom entityRandomisers = new SplittableRandom(Integer.parseInt(properties.getProperty("seed")));
     boolean auto = Boolean.parseBoolean(properties.getProperty("PacMan.isAuto"));
 
     this.pacActor = new PacActor(this);
     this.pacActor.setAuto(auto);
-    this.pacActor.setSeed(seed);
+    this.pacActor.setNearestByPath(Boolean.parseBoolean(properties.getProperty("PacMan.isNearestByPath")));
+    String nextHopIndexBudget = properties.getProperty("PacMan.nextHopIndexBudget");
+    if (nextHopIndexBudget != null && !nextHopIndexBudget.isBlank())
+      this.pacActor.setNextHopIndexBudget(Long.parseLong(nextHopIndexBudget.trim()));
+    this.pacActor.setRandomiser(entityRandomisers.split());
     this.pacActor.setSlowDown(SLOW_DOWN_FACTOR);
-    this.gameGrid.addActor(pacActor, gameMap.getPacStart());
+    addEntity(pacActor, gameMap.getPacStart());
     gameMap.subscribeToPillHandler(this.pacActor);
     gameMap.subscribeToGoldHandler(this.pacActor);
 
+    // Game checks for the end of the game once PacActor has counted the item
+    this.maxPillsAndGold = gameMap.getPills().size() + gameMap.getGold().size();
+    gameMap.subscribeToPillHandler(this);
+    gameMap.subscribeToGoldHandler(this);
+    gameMap.subscribeToCollisions(this);
+
     this.activeMonsters = new ArrayList<Monster>();
     for (Location location : gameMap.getTx5StartLocations()) {
       TX5 tx5 = new TX5(this);
-      tx5.setSeed(seed);
+      tx5.setRandomiser(entityRandomisers.split());
       tx5.setSlowDown(SLOW_DOWN_FACTOR);
-      this.gameGrid.addActor(tx5, location);
+      setVisitedLength(tx5, properties);
+      addEntity(tx5, location);
       this.activeMonsters.add(tx5);
     }
 
     for (Location location : gameMap.getTrollStartLocations()) {
       Troll troll = new Troll(this);
-      troll.setSeed(seed);
+      troll.setRandomiser(entityRandomisers.split());
       troll.setSlowDown(SLOW_DOWN_FACTOR);
-      this.gameGrid.addActor(troll, location);
+      setVisitedLength(troll, properties);
+      addEntity(troll, location);
       this.activeMonsters.add(troll);
     }
   }
 
+  /**
+   * Sets how many locations a monster remembers visiting from the property for its type,
+   * e.g. "TX5.visitedLength". Monsters keep their default if it isn't set.
+   * @param monster monster to set the length of
+   * @param properties properties of the game
+   */
+  private void setVisitedLength(Monster monster, Properties properties) {
+    String visitedLength = properties.getProperty(monster.getType() + ".visitedLength");
+    if (visitedLength != null && !visitedLength.isBlank())
+      monster.setVisitedLength(Integer.parseInt(visitedLength.trim()));
+  }
+
+  /**
+   * Adds an entity to the game grid, or places it directly onto the map when headless.
+   * @param entity entity to add
+   * @param location starting location of the entity
+   */
+  private void addEntity(Entity entity, Location location) {
+    if (isHeadless) {
+      entity.setLocation(location);
+
+      // GameGrid acts on the most recently added actors first
+      if (entity instanceof Monster monster) {
+        addToBatch(monster);
+      } else {
+        actOrder.add(0, entity);
+      }
+    } else {
+      gameGrid.addActor(entity, location);
+    }
+    gameMap.placeEntity(entity);
+  }
+
+  /**
+   * Adds a monster to the batch of its type. Monsters are added a type at a time, so only the
+   * most recently added batch needs checking
+   * @param monster monster to add
+   */
+  private void addToBatch(Monster monster) {
+    if (monsterBatches.isEmpty() || monsterBatches.get(0).getType() != monster.getType()) {
+      monsterBatches.add(0, new MonsterBatch(monster.getType(), parallelThreshold));
+    }
+    monsterBatches.get(0).add(monster);
+  }
+
   /**
    * Runs the game
    * @return Whether Pacman won the game or not
@@ -77,67 +181,172 @@ public class Game
     if (isRunning) return false;
     else isRunning = true;
 
-    gameGrid.setSimulationPeriod(100);
-    gameGrid.setTitle(GAME_TITLE);
-    gameGrid.doRun();
-    gameGrid.show();
-
-    // Run the start methods for all the entities
+    // Run the start methods for all the entities, before the clock starts
     pacActor.start();
     for (Monster monster : activeMonsters) {
       monster.start();
     }
 
-    int maxPillsAndGold =
-            gameMap.getPills().size() +
-            gameMap.getGold().size();
-
-    // Loop to look for collision in the application thread
-    // This makes it improbable that we miss a hit
-    while(pacActor.isAlive()) {
-
-      // If Pacman collects all the pills the game ends
-      if (pacActor.getNbPills() >= maxPillsAndGold) {
-        break;
-      }
+    // Collisions are only reported on a move, so check for entities that start on top of each other
+    for (Monster monster : activeMonsters) {
+      onCollision(monster, pacActor);
+    }
+    checkEndOfGame();
 
-      for (Monster monster : activeMonsters) {
-        if (monster.detectCollision(pacActor))
-          pacActor.confirmKill(monster);
-      }
-      gameGrid.delay(10);
+    if (!isHeadless) {
+      gameGrid.setSimulationPeriod(clock.getSimulationPeriod());
+      gameGrid.setTitle(GAME_TITLE);
+      gameGrid.doRun();
+      gameGrid.show();
     }
-    gameGrid.delay(120);
+
+    boolean pacManWon = isHeadless ? runHeadless() : runWindowed();
 
     // Once game is over we pause all the monsters
     for (Monster monster : activeMonsters) {
       monster.setStatePaused();
     }
 
-    // Change screen based on pacActor.isAlive()
-    String title;
-    if (pacActor.isAlive()) {
-      gameGrid.getBg().setPaintColor(Color.yellow);
-      gameGrid.setTitle(title = "YOU WIN");
-    } else {
-      gameGrid.getBg().setPaintColor(Color.red);
-      gameGrid.setTitle((title = "GAME OVER"));
+    // Change screen based on whether PacMan won
+    String title = pacManWon ? "YOU WIN" : "GAME OVER";
+    if (!isHeadless) {
+      gameGrid.getBg().setPaintColor(pacManWon ? Color.yellow : Color.red);
+      gameGrid.setTitle(title);
     }
     gameCallback.endOfGame(title);
-    gameGrid.stopGameThread();
-    gameGrid.doPause();
+
+    if (!isHeadless) {
+      gameGrid.stopGameThread();
+      gameGrid.doPause();
+    }
+
+    return pacManWon;
+  }
+
+  /**
+   * Waits for the GameGrid simulation to end the game, and then for the end of game delay
+   * to pass on the game clock, unless the GameGrid has been paused
+   * @return Whether Pacman won the game or not
+   */
+  private boolean runWindowed() {
+    try {
+      synchronized (this) {
+        while (!isGameOver) {
+          wait();
+        }
+      }
+      clock.awaitTicks(clock.millisToTicks(END_OF_GAME_DELAY), gameGrid::isPaused);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
 
     return pacActor.isAlive();
   }
 
+  /**
+   * Simulates the game without a GameGrid until the game ends. The game is lost if it
+   * runs for MAX_HEADLESS_CYCLES, since no one can steer a PacMan that isn't automatic.
+   * @return Whether Pacman won the game or not
+   */
+  private boolean runHeadless() {
+    actedMonsters = new Monster[activeMonsters.size()];
+    while (!isGameOver && !isStopped && clock.getTick() < MAX_HEADLESS_CYCLES) {
+      simulateCycle();
+    }
+    if (isStopped)
+      return false;
+
+    // The windowed game keeps simulating while it waits out the end of game delay
+    for (int i = 0; i < clock.millisToTicks(END_OF_GAME_DELAY); i++) {
+      simulateCycle();
+    }
+
+    return pacActor.isAlive() && pacActor.getNbPills() >= maxPillsAndGold;
+  }
+
+  /**
+   * Ends the game if Pacman has died or collected all the pills and gold, waking up
+   * a windowed game waiting for it
+   */
+  private synchronized void checkEndOfGame() {
+    if (!pacActor.isAlive() || pacActor.getNbPills() >= maxPillsAndGold) {
+      isGameOver = true;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Kills Pacman when a monster and Pacman collide, unless the game is already over
+   * @param mover Entity that moved
+   * @param occupant Entity that was already on the space
+   */
+  @Override
+  public void onCollision(Entity mover, Entity occupant) {
+    if (isGameOver) return;
+
+    Entity other = mover == pacActor ? occupant : occupant == pacActor ? mover : null;
+    if (other instanceof Monster) {
+      pacActor.confirmKill((Monster) other);
+      checkEndOfGame();
+    }
+  }
+
+  @Override
+  public void onItemConsumed(ItemEventCode code, Location location) {
+    checkEndOfGame();
+  }
+
+  /**
+   * Performs one GameGrid simulation cycle, acting on each entity whose slow down
+   * allows it to act this cycle. The lines logged during the cycle are flushed once, at its end
+   */
+  private void simulateCycle() {
+    clock.pace();
+    clock.advance();
+    gameCallback.startBatch();
+
+    int nbActed = 0;
+    for (MonsterBatch batch : monsterBatches) {
+      nbActed = batch.act(actedMonsters, nbActed);
+    }
+    for (int i = 0; i < nbActed; i++) {
+      gameCallback.monsterLocationChanged(actedMonsters[i]);
+    }
+
+    for (Entity entity : actOrder) {
+      if (entity.advanceStepCount()) {
+        entity.act();
+      }
+    }
+    gameCallback.endBatch();
+  }
+
+  /**
+   * Stops a headless game early, from any thread, when its result is no longer needed.
+   * The game ends as lost.
+   */
+  public void stop() { isStopped = true; }
+
   public PacActor getPacActor() { return pacActor; }
   public ArrayList<Monster> getActiveMonsters() { return new ArrayList<Monster>(activeMonsters); }
   public GameCallback getGameCallback() { return gameCallback; }
   public GameMap getGameMap() { return gameMap; }
   public String getGameTitle() { return GAME_TITLE; }
+  public boolean isHeadless() { return isHeadless; }
+
+  /**
+   * @param properties properties a game would be constructed with
+   * @return true if the game would be headless, else false
+   */
+  public static boolean isHeadless(Properties properties) {
+    return Boolean.parseBoolean(properties.getProperty("Game.isHeadless")) || GraphicsEnvironment.isHeadless();
+  }
+  public int getSimulationCycle() { return clock.getTick(); }
+  public GameClock getClock() { return clock; }
 
   public void close() {
-    gameGrid.getFrame().dispose();
+    if (!isHeadless)
+      gameGrid.getFrame().dispose();
   }
 
 }
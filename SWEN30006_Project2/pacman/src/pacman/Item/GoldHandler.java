@@ -1,7 +1,7 @@
 package pacman.Item;
 
 public class GoldHandler extends ItemHandler{
-    public GoldHandler() { super(); }
+    public GoldHandler(boolean isHeadless) { super(isHeadless); }
     @Override
     protected Item generateItem() {
         Item newGold = new Gold(this);
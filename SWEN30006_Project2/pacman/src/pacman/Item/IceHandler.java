@@ -1,7 +1,7 @@
 package pacman.Item;
 
 public class IceHandler extends ItemHandler {
-    public IceHandler() {super();}
+    public IceHandler(boolean isHeadless) { super(isHeadless); }
     @Override
     protected Item generateItem() {
         Item newIce = new Ice(this);
@@ -1,6 +1,5 @@
 package pacman.Item;
 
-import ch.aplu.jgamegrid.Actor;
 import ch.aplu.jgamegrid.GGBackground;
 import ch.aplu.jgamegrid.GameGrid;
 import ch.aplu.jgamegrid.Location;
@@ -8,20 +7,24 @@ import gamemap.Space;
 import gamemap.SpaceOccupier;
 import pacman.Entity.Entity;
 import pacman.Entity.PacActor;
+import pacman.utility.HeadlessActor;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Items require an ItemHandler to be created and distributed in the codebase. Items will use ItemHandlers
  * to notify relevant ItemEventListeners of their consumption. Classes that inherit from Item should
  * override consume() to suit the functionality of their item. A default implementation is provided.
+ * An item is claimed before it is consumed, so it is only ever consumed once, even by entities moving
+ * on different threads.
  */
-public abstract class Item extends Actor implements SpaceOccupier {
+public abstract class Item extends HeadlessActor implements SpaceOccupier {
     private final Color color;
     private final int radius;
     protected final ItemHandler itemHandler;
-    private boolean isConsumed = false;
+    private final AtomicBoolean isConsumed = new AtomicBoolean(false);
 
     /**
      * Constructor for an Item with an image.
@@ -31,7 +34,8 @@ public abstract class Item extends Actor implements SpaceOccupier {
      *                    is consumed
      */
     protected Item(String imgFileName, Color color, ItemHandler itemHandler) {
-        super(imgFileName);
+        // Items in a headless game have no sprites
+        super(false, imgFileName, itemHandler.isHeadless() ? 0 : 1);
         this.color = color;
         this.itemHandler = itemHandler;
         this.radius = 0;
@@ -57,17 +61,26 @@ public abstract class Item extends Actor implements SpaceOccupier {
      */
     public abstract void consume();
     protected void consumeSelf() {
-        this.gameGrid.getBg().fillCell(getLocation(), Color.lightGray);
+        if (this.gameGrid != null)
+            this.gameGrid.getBg().fillCell(getLocation(), Color.lightGray);
         this.hide();
-        this.isConsumed = true;
+        this.isConsumed.set(true);
     }
     public void interact(Entity e) {
         if (e.getClass() == PacActor.class) {
-            if (!this.isConsumed) {
+            if (claim()) {
                 this.consume();
             }
         }
     }
+
+    /**
+     * Claims the item for consumption. Only the first claim succeeds.
+     * @return true if the item hadn't been claimed or consumed yet, else false
+     */
+    protected boolean claim() {
+        return isConsumed.compareAndSet(false, true);
+    }
     public void placeOnto(GameGrid gameGrid, Space space) {
         gameGrid.addActor(this, space.getLocation());
         GGBackground bg = gameGrid.getBg();
@@ -75,6 +88,9 @@ public abstract class Item extends Actor implements SpaceOccupier {
         bg.fillCircle(gameGrid.toPoint(this.getLocation()), this.getItemRadius());
         this.show();
     }
+    public void placeOnto(Space space) {
+        this.setLocation(space.getLocation());
+    }
     public ArrayList<Location> neighboursOnEnter(Space space) {
         return null;
     }
@@ -83,5 +99,5 @@ public abstract class Item extends Actor implements SpaceOccupier {
     }
     public Color getColor() { return this.color; }
     public int getItemRadius() { return radius; }
-    public boolean isConsumed() { return isConsumed; }
+    public boolean isConsumed() { return isConsumed.get(); }
 }
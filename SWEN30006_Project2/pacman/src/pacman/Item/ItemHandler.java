@@ -12,13 +12,16 @@ import java.util.ArrayList;
 public abstract class ItemHandler {
     protected ArrayList<Item> itemArray;
     protected ArrayList<ItemEventListener> subscriberArray;
+    private final boolean isHeadless;
 
     /**
      * Constructor of an ItemHandler
+     * @param isHeadless whether the items are for a headless game, and so have no sprites
      */
-    public ItemHandler() {
+    public ItemHandler(boolean isHeadless) {
         itemArray = new ArrayList<Item>();
         subscriberArray = new ArrayList<ItemEventListener>();
+        this.isHeadless = isHeadless;
     }
     protected abstract Item generateItem();
 
@@ -45,4 +48,5 @@ public abstract class ItemHandler {
     private void addItem(Item item) { itemArray.add(item); }
     public void subscribe(ItemEventListener listener) { subscriberArray.add(listener); }
     public ArrayList<Item> getItems() { return new ArrayList<Item>(this.itemArray); }
+    public boolean isHeadless() { return isHeadless; }
 }
\ No newline at end of file
@@ -1,9 +1,7 @@
 package pacman.Item;
 
 public class PillHandler extends ItemHandler {
-    public PillHandler() {
-        super();
-    }
+    public PillHandler(boolean isHeadless) { super(isHeadless); }
     @Override
     protected Item generateItem() {
         Item newPill = new Pill(this);
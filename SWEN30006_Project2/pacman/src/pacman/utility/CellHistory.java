@@ -0,0 +1,113 @@
+package pacman.utility;
+
+import java.util.Arrays;
+
+/**
+ * CellHistory remembers the last few cells added to it, by their index in the map, and tells
+ * whether a cell is one of them in constant time. The cells are kept in a ring, alongside a small
+ * hash table counting how many times each cell is in the ring, so remembering more cells costs
+ * nothing extra per cell added or looked up.
+ */
+public class CellHistory {
+    public static final int NO_CELL = -1;
+    private final int[] ring;
+    private int oldest = 0;
+    private int nbCells = 0;
+
+    // Open addressed table of the cells in the ring, and how many times each is in it
+    private final int[] keys;
+    private final int[] counts;
+    private final int mask;
+
+    /**
+     * Constructs an empty CellHistory
+     * @param capacity number of most recently added cells remembered
+     */
+    public CellHistory(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity can't be negative: " + capacity);
+        this.ring = new int[capacity];
+
+        // At most half full, so probes stay short
+        int tableSize = 2;
+        while (tableSize < capacity * 2)
+            tableSize <<= 1;
+        this.keys = new int[tableSize];
+        this.counts = new int[tableSize];
+        this.mask = tableSize - 1;
+        clear();
+    }
+
+    /**
+     * Remembers a cell, forgetting the oldest one once the history is full. NO_CELL, such as for a
+     * location off the map, takes up a place in the history but is never found in it.
+     * @param cell index of the cell
+     */
+    public void add(int cell) {
+        if (ring.length == 0) return;
+
+        if (nbCells == ring.length) {
+            uncount(ring[oldest]);
+            oldest = (oldest + 1) % ring.length;
+            nbCells--;
+        }
+        ring[(oldest + nbCells) % ring.length] = cell;
+        nbCells++;
+
+        if (cell == NO_CELL) return;
+        int slot = slotOf(cell);
+        keys[slot] = cell;
+        counts[slot]++;
+    }
+
+    /**
+     * @param cell index of the cell
+     * @return true if the cell is one of the cells remembered, else false
+     */
+    public boolean contains(int cell) {
+        return cell != NO_CELL && keys[slotOf(cell)] == cell;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, NO_CELL);
+        Arrays.fill(counts, 0);
+        oldest = 0;
+        nbCells = 0;
+    }
+
+    public int getCapacity() { return ring.length; }
+    public int size() { return nbCells; }
+
+    private void uncount(int cell) {
+        if (cell == NO_CELL) return;
+        int hole = slotOf(cell);
+        if (--counts[hole] > 0) return;
+
+        // Shift back any later cells in the same run that can't be found past the hole otherwise
+        int next = (hole + 1) & mask;
+        while (keys[next] != NO_CELL) {
+            int home = homeOf(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = NO_CELL;
+        counts[hole] = 0;
+    }
+
+    // Slot holding the cell, or the empty slot it would go in
+    private int slotOf(int cell) {
+        int slot = homeOf(cell);
+        while (keys[slot] != NO_CELL && keys[slot] != cell)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private int homeOf(int cell) {
+        int hash = cell * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
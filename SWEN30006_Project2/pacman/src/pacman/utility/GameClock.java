@@ -0,0 +1,116 @@
+package pacman.utility;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * GameClock keeps a game's logical time, which everything timed in the game reads instead of the
+ * wall clock. The game advances the clock one tick of TICK_MILLIS per simulation cycle, so how much
+ * logical time has passed only depends on how many cycles have been simulated. The speed only decides
+ * how long a tick takes in real time, so a game plays out the same at any speed.
+ */
+public class GameClock {
+    public static final int TICK_MILLIS = 100;
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+    private static final int PAUSE_CHECK_MILLIS = 10;
+    private final TickScheduler scheduler = new TickScheduler();
+    private final double speed;
+
+    // Real time the next tick is due, when pacing ticks. Zero until the first tick
+    private long nextTickNanos = 0;
+
+    /**
+     * Constructs a GameClock at tick 0
+     * @param speed how many times faster than real time to run, or AS_FAST_AS_POSSIBLE
+     */
+    public GameClock(double speed) {
+        if (!(speed > 0))
+            throw new IllegalArgumentException("Game speed must be positive: " + speed);
+        this.speed = speed;
+    }
+
+    /**
+     * Parses a speed, as given in properties
+     * @param value a multiplier such as "2" or "0.5", or "max" for as fast as possible. If null, the
+     *              default speed is used
+     * @param defaultSpeed speed to use if no value is given
+     * @return the speed
+     */
+    public static double parseSpeed(String value, double defaultSpeed) {
+        if (value == null || value.isBlank()) return defaultSpeed;
+        if (value.trim().equalsIgnoreCase("max")) return AS_FAST_AS_POSSIBLE;
+        return Double.parseDouble(value.trim());
+    }
+
+    /**
+     * Moves on to the next tick, running every task scheduled for it
+     */
+    public void advance() {
+        scheduler.advance();
+    }
+
+    /**
+     * Waits until the next tick is due in real time, at the clock's speed. Returns straight away when
+     * running as fast as possible. Used when nothing else paces the ticks.
+     */
+    public void pace() {
+        if (speed == AS_FAST_AS_POSSIBLE) return;
+
+        long now = System.nanoTime();
+        if (nextTickNanos == 0) {
+            nextTickNanos = now;
+        } else if (now < nextTickNanos) {
+            try {
+                long waitNanos = nextTickNanos - now;
+                Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        nextTickNanos += (long) (TICK_MILLIS * 1000000L / speed);
+    }
+
+    /**
+     * Runs a task once a number of ticks have passed
+     * @param ticks number of ticks to wait
+     * @param task task to run
+     */
+    public void schedule(int ticks, Runnable task) {
+        scheduler.schedule(ticks, task);
+    }
+
+    /**
+     * Waits for a number of ticks to pass, while something else advances the clock. Stops waiting
+     * early if the clock is paused, since the ticks may then never come
+     * @param ticks number of ticks to wait
+     * @param isPaused checked every PAUSE_CHECK_MILLIS while waiting, such as a GameGrid's isPaused
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitTicks(int ticks, BooleanSupplier isPaused) throws InterruptedException {
+        Object lock = new Object();
+        boolean[] isDone = { false };
+        scheduler.schedule(ticks, () -> {
+            synchronized (lock) {
+                isDone[0] = true;
+                lock.notifyAll();
+            }
+        });
+        synchronized (lock) {
+            while (!isDone[0] && !isPaused.getAsBoolean()) {
+                lock.wait(PAUSE_CHECK_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return real time between ticks in milliseconds, for a GameGrid's simulation period. At least 1
+     */
+    public int getSimulationPeriod() {
+        return (int) Math.max(1, Math.round(TICK_MILLIS / speed));
+    }
+
+    public int secondsToTicks(int seconds) { return seconds * 1000 / TICK_MILLIS; }
+    public int millisToTicks(int millis) { return millis / TICK_MILLIS; }
+    public int getTick() { return scheduler.getTick(); }
+    public long getTime() { return (long) getTick() * TICK_MILLIS; }
+    public double getSpeed() { return speed; }
+}
@@ -0,0 +1,42 @@
+package pacman.utility;
+
+import ch.aplu.jgamegrid.Actor;
+import ch.aplu.jgamegrid.Location;
+
+/**
+ * An Actor that can also be used in a headless game. Actor can only report its location once it
+ * is part of a GameGrid, so a HeadlessActor keeps track of its location itself until then.
+ */
+public abstract class HeadlessActor extends Actor {
+
+    // x and y are packed together, so a location read from another thread is never half updated
+    private volatile long headlessLocation;
+
+    protected HeadlessActor() {
+        super();
+    }
+
+    /**
+     * @param isRotatable whether the sprite can rotate
+     * @param spriteFileName filename to image(s)
+     * @param nbSprites number of image(s), 0 for a headless game
+     */
+    protected HeadlessActor(boolean isRotatable, String spriteFileName, int nbSprites) {
+        super(isRotatable, spriteFileName, nbSprites);
+    }
+
+    @Override
+    public Location getLocation() {
+        if (gameGrid == null) {
+            long location = headlessLocation;
+            return new Location((int) (location >> 32), (int) location);
+        }
+        return super.getLocation();
+    }
+
+    @Override
+    public void setLocation(Location location) {
+        super.setLocation(location);
+        headlessLocation = ((long) location.x << 32) | (location.y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,63 @@
+package pacman.utility;
+
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+/**
+ * TickScheduler runs tasks once a number of game ticks have passed, instead of after a wall clock
+ * delay. The game advances it once per simulation cycle, so everything scheduled on it shares the
+ * game's thread rather than each needing a Timer thread, and runs on the same tick however fast the
+ * game is simulated. Tasks due on the same tick run in the order they were scheduled.
+ */
+public class TickScheduler {
+    private final PriorityQueue<ScheduledTask> tasks = new PriorityQueue<ScheduledTask>();
+    private int tick = 0;
+    private long nbScheduled = 0;
+
+    /**
+     * Schedules a task to run once the given number of ticks have passed
+     * @param delay number of ticks to wait
+     * @param task task to run
+     */
+    public synchronized void schedule(int delay, Runnable task) {
+        tasks.add(new ScheduledTask(tick + delay, nbScheduled++, task));
+    }
+
+    /**
+     * Moves on to the next tick, running every task that's now due
+     */
+    public void advance() {
+        ArrayList<Runnable> dueTasks = new ArrayList<Runnable>();
+        synchronized (this) {
+            tick++;
+            while (!tasks.isEmpty() && tasks.peek().deadline <= tick) {
+                dueTasks.add(tasks.poll().task);
+            }
+        }
+
+        // Tasks are run without the lock, so they can schedule more tasks
+        for (Runnable task : dueTasks) {
+            task.run();
+        }
+    }
+
+    public synchronized int getTick() { return tick; }
+
+    private static class ScheduledTask implements Comparable<ScheduledTask> {
+        private final int deadline;
+        private final long order;
+        private final Runnable task;
+
+        private ScheduledTask(int deadline, long order, Runnable task) {
+            this.deadline = deadline;
+            this.order = order;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            if (deadline != other.deadline) return Integer.compare(deadline, other.deadline);
+            return Long.compare(order, other.order);
+        }
+    }
+}
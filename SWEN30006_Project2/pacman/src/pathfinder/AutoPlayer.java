@@ -2,10 +2,10 @@ package pathfinder;
 
 import ch.aplu.jgamegrid.Location;
 import gamemap.GameMap;
+import gamemap.NearestItemIndex;
 import pacman.Entity.Monster;
 import pacman.Entity.PacActor;
 import pacman.Item.Item;
-import pacman.utility.HashLocation;
 
 import java.util.*;
 
@@ -16,70 +16,78 @@ import java.util.*;
 public class AutoPlayer {
     private GameMap gameMap;
     private ArrayList<PathObject> avoidedObjects;
+    private GridSearch gridSearch;
+    private NextHopIndex nextHopIndex;
+    private int[] avoidedCells;
+    /**
+     * Constructs an AutoPlayer that searches for every path it is asked for
+     * @param gameMap map to find paths on
+     */
     public AutoPlayer(GameMap gameMap) {
+        this(gameMap, 0);
+    }
+
+    /**
+     * Constructs an AutoPlayer that remembers the paths it has found, in a NextHopIndex
+     * @param gameMap map to find paths on
+     * @param indexBudget maximum number of bytes the NextHopIndex can use. 0 disables the index
+     */
+    public AutoPlayer(GameMap gameMap, long indexBudget) {
         this.gameMap = gameMap;
         this.avoidedObjects = new ArrayList<>();
+        this.gridSearch = new GridSearch(gameMap);
+        this.nextHopIndex = NextHopIndex.create(gridSearch, indexBudget);
+        this.avoidedCells = new int[0];
     }
     public Location findNext(Location start, Location end) {
 
-        // State used by algorithm
-        Queue<Location> queue = new LinkedList<Location>();
-        Set<HashLocation> visitedSet = new HashSet<HashLocation>();
-        Map<Location, Location> parentMap = new HashMap<Location, Location>();
+        // Avoided objects move around, so paths around them can't be remembered
+        if (nextHopIndex != null && avoidedObjects.isEmpty()) {
+            int startIndex = gridSearch.toIndex(start);
+            int next = nextHopIndex.findNext(startIndex, gridSearch.toIndex(end));
+            return next == startIndex ? start : gridSearch.toLocation(next);
+        }
 
-        // Map the start to itself, so we don't get null results
-        parentMap.put(start, start);
+        // Avoided objects are marked by cell for the duration of the search
+        if (avoidedCells.length < avoidedObjects.size())
+            avoidedCells = new int[avoidedObjects.size()];
+        int nbAvoided = 0;
+        for (PathObject pathObject : avoidedObjects) {
+            Location location = pathObject.getLocation();
+            if (gridSearch.isInMap(location))
+                avoidedCells[nbAvoided++] = gridSearch.toIndex(location);
+        }
 
-        // Add neighbours to the queue
         // Neighbours on Exit is important -> there is a difference between
         // entering and exiting a portal i.e. a portal entered effectively has
         // the neighbours of it's paired portal, but exiting a portal acts
         // like a regular path tile.
-        for (Location neighbour : gameMap.getSpace(start).getNeighboursOnExit()) {
-
-            if (shouldAvoid(neighbour))
-                continue;
-
-            if (gameMap.isWalkable(neighbour)) {
-                parentMap.put(neighbour, start);
-                visitedSet.add(new HashLocation(neighbour));
-                queue.add(neighbour);
-            }
-        }
-
-        // Iterate through locations we can visit
-        while (!queue.isEmpty()) {
-            Location current = queue.remove();
-
-            // Search for the end location
-            if (current.equals(end)) {
-
-                // Reconstruct the path back to the start
-                Location next = current;
-                while (parentMap.get(next) != start) {
-                    next = parentMap.get(next);
-                }
-                return next;
-            }
-
-            for (Location neighbour : gameMap.getSpace(current).getNeighboursOnEnter()) {
-
-                if (shouldAvoid(neighbour))
-                    continue;
-
-                // HashLocation is needed because Location doesn't override hashCode() method
-                // that HashSet<>() needs to work properly
-                if (!visitedSet.contains(new HashLocation(neighbour)) && gameMap.isWalkable(neighbour)) {
-                    // Map each neighbour to the current location
-                    parentMap.put(neighbour, current);
-                    visitedSet.add(new HashLocation(neighbour));
-                    queue.add(neighbour);
-                }
-            }
-        }
+        int startIndex = gridSearch.toIndex(start);
+        int next = gridSearch.findNext(startIndex, gridSearch.toIndex(end), avoidedCells, nbAvoided);
 
         // Could not find a path
-        return start;
+        if (next == startIndex)
+            return start;
+        return gridSearch.toLocation(next);
+    }
+
+    /**
+     * Finds the uneaten item with the shortest path from start, taking portals into account.
+     * Of items equally far away, the one the search reaches first is returned.
+     * @param start location to search from
+     * @param itemIndex index of the items left on the map
+     * @return nearest item by path, or null if no item can be reached
+     */
+    public Item findNearestItem(Location start, NearestItemIndex itemIndex) {
+        if (itemIndex.getNbItems() == 0 || !gridSearch.isInMap(start))
+            return null;
+
+        int nearest = gridSearch.findNearest(gridSearch.toIndex(start), itemIndex::hasItemAt);
+        if (nearest < 0)
+            return null;
+
+        Location location = gridSearch.toLocation(nearest);
+        return itemIndex.getItemAt(location.x, location.y);
     }
 
     // Checks the location against things to avoid. This is a simple implementation.
@@ -98,4 +106,7 @@ public class AutoPlayer {
     public void avoidPathObject(PathObject pathObject) {
         this.avoidedObjects.add(pathObject);
     }
+
+    public NextHopIndex getNextHopIndex() { return nextHopIndex; }
+    public GridSearch getGridSearch() { return gridSearch; }
 }
@@ -0,0 +1,227 @@
+package pathfinder;
+
+import ch.aplu.jgamegrid.Location;
+import gamemap.GameMap;
+import gamemap.Space;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * GridSearch is a breadth first search over the cells of a GameMap, where each cell is
+ * identified by its index (y * width + x). The neighbours of every cell are worked out once,
+ * and the search state is kept in int arrays that are reused between searches, so
+ * searching doesn't allocate.
+ */
+public class GridSearch {
+    private static final int NB_NEIGHBOURS = 4;
+    private static final int NO_CELL = -1;
+    private final int mapWidth;
+    private final int mapHeight;
+
+    // Walkable neighbours of each cell, NB_NEIGHBOURS per cell, padded with NO_CELL
+    private final int[] neighboursOnEnter;
+    private final int[] neighboursOnExit;
+
+    // Search state. A cell is visited/avoided if its stamp matches the current generation
+    private final int[] queue;
+    private final int[] parent;
+    private final int[] visitedStamp;
+    private final int[] avoidedStamp;
+    private int generation = 0;
+
+    // Next slot to fill while working out neighbours
+    private int fillSlot;
+
+    /**
+     * Constructs a GridSearch over the spaces of the given GameMap
+     * @param gameMap map to search
+     */
+    public GridSearch(GameMap gameMap) {
+        this.mapWidth = gameMap.getMapWidth();
+        this.mapHeight = gameMap.getMapHeight();
+
+        int nbCells = mapWidth * mapHeight;
+        this.neighboursOnEnter = new int[nbCells * NB_NEIGHBOURS];
+        this.neighboursOnExit = new int[nbCells * NB_NEIGHBOURS];
+        this.queue = new int[nbCells + 1];
+        this.parent = new int[nbCells];
+        this.visitedStamp = new int[nbCells];
+        this.avoidedStamp = new int[nbCells];
+
+        // Unwalkable neighbours are left out, and the remaining slots padded with NO_CELL
+        Arrays.fill(neighboursOnEnter, NO_CELL);
+        Arrays.fill(neighboursOnExit, NO_CELL);
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                Space space = gameMap.getSpace(x, y);
+                int index = toIndex(x, y);
+                fillSlot = index * NB_NEIGHBOURS;
+                space.forEachNeighbourOnEnter(neighbour -> addNeighbour(gameMap, neighboursOnEnter, neighbour));
+                fillSlot = index * NB_NEIGHBOURS;
+                space.forEachNeighbourOnExit(neighbour -> addNeighbour(gameMap, neighboursOnExit, neighbour));
+            }
+        }
+    }
+
+    private void addNeighbour(GameMap gameMap, int[] neighbours, int neighbour) {
+        if (gameMap.isWalkable(neighbour))
+            neighbours[fillSlot++] = neighbour;
+    }
+
+    /**
+     * Finds the first cell to move to on a shortest path from start to end. Leaving the start
+     * cell uses its neighbours on exit, while every other cell uses its neighbours on enter,
+     * so a portal is left like a regular path tile but entering one continues from its pair.
+     * @param start index of the starting cell
+     * @param end index of the cell to reach
+     * @param avoided indices of cells that can't be moved through
+     * @param nbAvoided number of avoided cells
+     * @return index of the next cell to move to, or start if end can't be reached
+     */
+    public int findNext(int start, int end, int[] avoided, int nbAvoided) {
+        int stamp = nextGeneration();
+        for (int i = 0; i < nbAvoided; i++) {
+            avoidedStamp[avoided[i]] = stamp;
+        }
+
+        // Cells next to the start have no parent, so they end the path reconstruction.
+        // The start itself isn't visited yet, since it can still be re-entered
+        int head = 0;
+        int tail = 0;
+        int offset = start * NB_NEIGHBOURS;
+        for (int i = 0; i < NB_NEIGHBOURS; i++) {
+            int neighbour = neighboursOnExit[offset + i];
+            if (neighbour == NO_CELL || avoidedStamp[neighbour] == stamp)
+                continue;
+            parent[neighbour] = NO_CELL;
+            visitedStamp[neighbour] = stamp;
+            queue[tail++] = neighbour;
+        }
+
+        while (head < tail) {
+            int current = queue[head++];
+
+            // Reconstruct the path back to the start
+            if (current == end) {
+                int next = current;
+                while (parent[next] != NO_CELL) {
+                    next = parent[next];
+                }
+                return next;
+            }
+
+            offset = current * NB_NEIGHBOURS;
+            for (int i = 0; i < NB_NEIGHBOURS; i++) {
+                int neighbour = neighboursOnEnter[offset + i];
+                if (neighbour == NO_CELL || avoidedStamp[neighbour] == stamp || visitedStamp[neighbour] == stamp)
+                    continue;
+                parent[neighbour] = current;
+                visitedStamp[neighbour] = stamp;
+                queue[tail++] = neighbour;
+            }
+        }
+
+        // Could not find a path
+        return start;
+    }
+
+    /**
+     * Finds the target cell with the shortest path from start, moving the same way findNext() does.
+     * The start itself is never a target.
+     * @param start index of the starting cell
+     * @param isTarget tests whether the cell with the given index is a target
+     * @return index of the nearest target cell, or NO_CELL if none can be reached
+     */
+    public int findNearest(int start, IntPredicate isTarget) {
+        int stamp = nextGeneration();
+
+        int head = 0;
+        int tail = 0;
+        int offset = start * NB_NEIGHBOURS;
+        for (int i = 0; i < NB_NEIGHBOURS; i++) {
+            int neighbour = neighboursOnExit[offset + i];
+            if (neighbour == NO_CELL || visitedStamp[neighbour] == stamp)
+                continue;
+            visitedStamp[neighbour] = stamp;
+            queue[tail++] = neighbour;
+        }
+
+        while (head < tail) {
+            int current = queue[head++];
+            if (current != start && isTarget.test(current))
+                return current;
+
+            offset = current * NB_NEIGHBOURS;
+            for (int i = 0; i < NB_NEIGHBOURS; i++) {
+                int neighbour = neighboursOnEnter[offset + i];
+                if (neighbour == NO_CELL || visitedStamp[neighbour] == stamp)
+                    continue;
+                visitedStamp[neighbour] = stamp;
+                queue[tail++] = neighbour;
+            }
+        }
+
+        return NO_CELL;
+    }
+
+    /**
+     * Searches outwards from start to every cell, recording for each one the neighbour of start
+     * that begins the path to it and the path's length, as encoded by NextHopIndex. The paths are
+     * the same ones findNext() would take.
+     * @param start index of the starting cell
+     * @param row one entry per cell, to be filled in
+     */
+    void fillNextHops(int start, char[] row) {
+        Arrays.fill(row, NextHopIndex.NO_PATH);
+        int stamp = nextGeneration();
+
+        int head = 0;
+        int tail = 0;
+        int offset = start * NB_NEIGHBOURS;
+        for (int i = 0; i < NB_NEIGHBOURS; i++) {
+            int neighbour = neighboursOnExit[offset + i];
+            if (neighbour == NO_CELL)
+                continue;
+            row[neighbour] = NextHopIndex.encode(i, 1);
+            visitedStamp[neighbour] = stamp;
+            queue[tail++] = neighbour;
+        }
+
+        // Every cell inherits the first step of the cell it was reached from
+        while (head < tail) {
+            int current = queue[head++];
+            char next = NextHopIndex.extend(row[current]);
+
+            offset = current * NB_NEIGHBOURS;
+            for (int i = 0; i < NB_NEIGHBOURS; i++) {
+                int neighbour = neighboursOnEnter[offset + i];
+                if (neighbour == NO_CELL || visitedStamp[neighbour] == stamp)
+                    continue;
+                row[neighbour] = next;
+                visitedStamp[neighbour] = stamp;
+                queue[tail++] = neighbour;
+            }
+        }
+    }
+
+    private int nextGeneration() {
+
+        // Stamps from earlier generations would be mistaken for new ones once the counter wraps
+        if (++generation == 0) {
+            Arrays.fill(visitedStamp, 0);
+            Arrays.fill(avoidedStamp, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+
+    public int getNeighbourOnExit(int index, int slot) { return neighboursOnExit[index * NB_NEIGHBOURS + slot]; }
+    public int getNbCells() { return mapWidth * mapHeight; }
+    public int toIndex(int x, int y) { return y * mapWidth + x; }
+    public int toIndex(Location location) { return toIndex(location.x, location.y); }
+    public Location toLocation(int index) { return new Location(index % mapWidth, index / mapWidth); }
+    public boolean isInMap(Location location) {
+        return location.x >= 0 && location.x < mapWidth && location.y >= 0 && location.y < mapHeight;
+    }
+}
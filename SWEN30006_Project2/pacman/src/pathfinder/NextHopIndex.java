@@ -0,0 +1,125 @@
+package pathfinder;
+
+/**
+ * NextHopIndex answers "which way should I go, and how far is it" between any two cells of a
+ * GameMap in constant time. Walls and portals never change once a map is prepared, so a breadth
+ * first search from a source cell only ever has to be run once. Each source gets a row with one
+ * char per cell, holding the neighbour slot (2 bits) that starts the path and the path length
+ * (14 bits). Rows are built the first time a source is asked about, and only as many rows as fit
+ * in the memory budget are kept, the oldest being reused first.
+ * <p>
+ * Building a row searches the whole map, where a single GridSearch.findNext() stops once it reaches
+ * its end, so the index only pays off when the same sources are asked about many times while their
+ * rows are kept. PacMan asks from the cell it's standing on, which is a different cell nearly every
+ * move, so the index is off by default (a budget of 0). Playing the 80x80 test maps with it on was
+ * about twice as slow as searching every time, with budgets anywhere from 64 KB to 256 MB, as few
+ * rows were used more than once. It's worth enabling when a few sources are asked about over and
+ * over, such as paths from fixed points, on a map small enough that those rows all fit the budget.
+ */
+public class NextHopIndex {
+    static final char NO_PATH = 0xFFFF;
+    private static final int DISTANCE_BITS = 14;
+    private static final int DISTANCE_MASK = (1 << DISTANCE_BITS) - 1;
+
+    // The largest distance is one less than the mask, so that NO_PATH can't be mistaken for a path
+    private static final int MAX_DISTANCE = DISTANCE_MASK - 1;
+    private final GridSearch gridSearch;
+    private final char[][] rows;
+
+    // Sources whose rows are kept, in the order they were built
+    private final int[] residentSources;
+    private int nbResident = 0;
+    private int oldestResident = 0;
+
+    /**
+     * Constructs an empty NextHopIndex
+     * @param gridSearch search over the map to index
+     * @param maxRows maximum number of rows to keep at once
+     */
+    private NextHopIndex(GridSearch gridSearch, int maxRows) {
+        this.gridSearch = gridSearch;
+        this.rows = new char[gridSearch.getNbCells()][];
+        this.residentSources = new int[maxRows];
+    }
+
+    /**
+     * Creates a NextHopIndex that uses at most memoryBudget bytes for its rows
+     * @param gridSearch search over the map to index
+     * @param memoryBudget maximum number of bytes used by rows
+     * @return the index, or null if not even a single row fits in the budget
+     */
+    public static NextHopIndex create(GridSearch gridSearch, long memoryBudget) {
+        long rowBytes = (long) gridSearch.getNbCells() * Character.BYTES;
+        long maxRows = Math.min(memoryBudget / rowBytes, gridSearch.getNbCells());
+        if (maxRows < 1) return null;
+        return new NextHopIndex(gridSearch, (int) maxRows);
+    }
+
+    /**
+     * Builds the rows for every source, if they all fit in the memory budget
+     * @return true if every row was built, else false
+     */
+    public boolean precompute() {
+        if (residentSources.length < rows.length) return false;
+        for (int source = 0; source < rows.length; source++) {
+            getRow(source);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first cell to move to on a shortest path from start to end, the same one
+     * GridSearch.findNext() would find
+     * @param start index of the starting cell
+     * @param end index of the cell to reach
+     * @return index of the next cell to move to, or start if end can't be reached
+     */
+    public int findNext(int start, int end) {
+        char entry = getRow(start)[end];
+        if (entry == NO_PATH) return start;
+        return gridSearch.getNeighbourOnExit(start, entry >>> DISTANCE_BITS);
+    }
+
+    /**
+     * Length of the shortest path from start to end. Paths longer than MAX_DISTANCE are
+     * reported as MAX_DISTANCE.
+     * @param start index of the starting cell
+     * @param end index of the cell to reach
+     * @return number of moves from start to end, or -1 if end can't be reached
+     */
+    public int getDistance(int start, int end) {
+        char entry = getRow(start)[end];
+        if (entry == NO_PATH) return -1;
+        return entry & DISTANCE_MASK;
+    }
+
+    private char[] getRow(int source) {
+        char[] row = rows[source];
+        if (row != null) return row;
+
+        // Reuse the oldest row once the budget is used up
+        if (nbResident == residentSources.length) {
+            int evicted = residentSources[oldestResident];
+            row = rows[evicted];
+            rows[evicted] = null;
+            residentSources[oldestResident] = source;
+            oldestResident = (oldestResident + 1) % residentSources.length;
+        } else {
+            row = new char[rows.length];
+            residentSources[nbResident++] = source;
+        }
+
+        gridSearch.fillNextHops(source, row);
+        rows[source] = row;
+        return row;
+    }
+
+    static char encode(int slot, int distance) {
+        return (char) ((slot << DISTANCE_BITS) | Math.min(distance, MAX_DISTANCE));
+    }
+
+    // Entry for a cell one move further along the same path
+    static char extend(char entry) {
+        return encode(entry >>> DISTANCE_BITS, (entry & DISTANCE_MASK) + 1);
+    }
+}
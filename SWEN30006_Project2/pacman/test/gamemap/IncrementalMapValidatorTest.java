@@ -0,0 +1,80 @@
+package gamemap;
+
+import logger.EditorErrorCallback;
+import matachi.mapeditor.editor.TileManager;
+import matachi.mapeditor.grid.Grid;
+import matachi.mapeditor.grid.GridModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that IncrementalMapValidator finds the same errors as GameMapValidator as a map is edited
+ */
+public class IncrementalMapValidatorTest {
+    private static final String[] COMMON_TILES = {
+            "WallTile", "PathTile", "WallTile", "PathTile", "WallTile", "PathTile", "PillTile", "GoldTile" };
+    private static final String[] RARE_TILES = {
+            "PortalWhiteTile", "PortalYellowTile", "IceTile", "TrollTile", "Tx5Tile", "PacTile" };
+
+    @TempDir
+    File folder;
+
+    @Test
+    public void errorsMatchWhileEditing() {
+        Random random = new Random(14);
+        for (int i = 0; i < 5; i++) {
+            Grid grid = new GridModel(TestMaps.randomMap(random, 10 + i, 8, i % 3), TileManager.getInstance().getDefaultChar());
+            IncrementalMapValidator validator = new IncrementalMapValidator(grid);
+            assertSameErrors(grid, validator);
+
+            for (int j = 0; j < 300; j++) {
+                String tileName = random.nextInt(20) == 0
+                        ? RARE_TILES[random.nextInt(RARE_TILES.length)]
+                        : COMMON_TILES[random.nextInt(COMMON_TILES.length)];
+                grid.setTile(random.nextInt(grid.getWidth()), random.nextInt(grid.getHeight()), TestMaps.tile(tileName));
+                assertSameErrors(grid, validator);
+            }
+        }
+    }
+
+    @Test
+    public void errorsMatchAfterResizing() {
+        Random random = new Random(15);
+        Grid grid = new GridModel(TestMaps.randomMap(random, 8, 6, 1), TileManager.getInstance().getDefaultChar());
+        IncrementalMapValidator validator = new IncrementalMapValidator(grid);
+        for (int direction = 0; direction < 4; direction++) {
+            grid.expandMap(2, direction);
+            assertSameErrors(grid, validator);
+            grid.setTile(grid.getWidth() - 1, grid.getHeight() - 1, TestMaps.tile("PillTile"));
+            assertSameErrors(grid, validator);
+        }
+    }
+
+    @Test
+    public void validMapHasNoErrors() {
+        Random random = new Random(16);
+        for (int i = 0; i < 20; i++) {
+            Grid grid = new GridModel(TestMaps.randomMap(random, 9, 7, 0), TileManager.getInstance().getDefaultChar());
+            File mapFile = TestMaps.save(grid.getMap(), folder);
+            IncrementalMapValidator validator = new IncrementalMapValidator(grid);
+            boolean isValid = TestMaps.load(mapFile) != null;
+
+            StringWriter errors = new StringWriter();
+            assertEquals(isValid, validator.validateMap(new EditorErrorCallback(errors), mapFile));
+            assertEquals(isValid, errors.toString().isEmpty());
+        }
+    }
+
+    private void assertSameErrors(Grid grid, IncrementalMapValidator validator) {
+        File mapFile = TestMaps.save(grid.getMap(), folder);
+        StringWriter expected = new StringWriter();
+        new GameMapValidator(mapFile, new EditorErrorCallback(expected), true).validateMap();
+        assertEquals(expected.toString(), validator.getErrors(mapFile));
+    }
+}
@@ -0,0 +1,64 @@
+package gamemap;
+
+import ch.aplu.jgamegrid.Location;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pacman.Item.Item;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks NearestItemIndex against looking at every pill and gold, as PacActor used to
+ */
+public class NearestItemIndexTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    public void findNearestMatchesScanningEveryItem() {
+        Random random = new Random(5);
+        for (int i = 0; i < 5; i++) {
+            GameMap gameMap = TestMaps.randomGameMap(random, folder, 30 + 7 * i, 20 + 3 * i, 0);
+            gameMap.placeOccupiers();
+            NearestItemIndex index = gameMap.getNearestItemIndex();
+
+            ArrayList<Item> items = new ArrayList<Item>(gameMap.getPills());
+            items.addAll(gameMap.getGold());
+            while (true) {
+                for (int y = 0; y < gameMap.getMapHeight(); y++) {
+                    for (int x = 0; x < gameMap.getMapWidth(); x++) {
+                        Location from = new Location(x, y);
+                        assertSame(findNearest(items, from), index.findNearest(from), "From " + from);
+                    }
+                }
+                if (index.getNbItems() == 0) break;
+
+                // Eat a few items, as PacMan would, before looking again
+                for (int j = 0; j < 1 + items.size() / 4; j++) {
+                    Item item = items.get(random.nextInt(items.size()));
+                    if (!item.isConsumed()) item.consume();
+                }
+            }
+            assertNull(index.findNearest(new Location(0, 0)));
+        }
+    }
+
+    private Item findNearest(ArrayList<Item> items, Location from) {
+        Item nearest = null;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (Item item : items) {
+            if (item.isConsumed()) continue;
+            int distance = from.getDistanceTo(item.getLocation());
+            if (distance < nearestDistance) {
+                nearest = item;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+}
@@ -0,0 +1,103 @@
+package gamemap;
+
+import logger.EditorErrorCallback;
+import matachi.mapeditor.editor.GridModelLoader;
+import matachi.mapeditor.editor.TileManager;
+import matachi.mapeditor.grid.GridModel;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Random;
+
+/**
+ * Builds random maps for tests. Tiles are looked up the same way as the editor does, so tests have to
+ * be run from the folder holding pacman/, like the game.
+ */
+public class TestMaps {
+    private static final String[] PORTAL_TILES = {
+            "PortalWhiteTile", "PortalYellowTile", "PortalDarkGoldTile", "PortalDarkGrayTile" };
+    private static final int MAX_ATTEMPTS = 100;
+
+    // Each map file gets its own name, so a cached copy of an earlier map is never read back
+    private static int nbFiles = 0;
+
+    /**
+     * Makes a random map of walls, paths, items and monsters, with a single PacMan. It isn't
+     * necessarily valid.
+     * @param random source of randomness
+     * @param width width of the map
+     * @param height height of the map
+     * @param nbPortalPairs number of portal colours to place a pair of, at most 4
+     * @return tiles of the map, by row
+     */
+    public static char[][] randomMap(Random random, int width, int height, int nbPortalPairs) {
+        char[][] map = new char[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int roll = random.nextInt(20);
+                String tileName = roll < 5 ? "WallTile"
+                        : roll < 8 ? "PillTile"
+                        : roll < 9 ? "GoldTile"
+                        : roll < 10 ? "IceTile"
+                        : "PathTile";
+                map[y][x] = tile(tileName);
+            }
+        }
+
+        // Monsters and PacMan go last, so they aren't overwritten
+        for (int i = 0; i < nbPortalPairs; i++) {
+            place(random, map, PORTAL_TILES[i]);
+            place(random, map, PORTAL_TILES[i]);
+        }
+        place(random, map, "TrollTile");
+        place(random, map, "Tx5Tile");
+        place(random, map, "PacTile");
+        return map;
+    }
+
+    /**
+     * Makes a random map that passes validation, trying again until one does
+     * @param random source of randomness
+     * @param folder folder to save the map files in
+     * @param width width of the map
+     * @param height height of the map
+     * @param nbPortalPairs number of portal colours to place a pair of, at most 4
+     * @return the prepared GameMap
+     */
+    public static GameMap randomGameMap(Random random, File folder, int width, int height, int nbPortalPairs) {
+        for (int i = 0; i < MAX_ATTEMPTS; i++) {
+            GameMap gameMap = load(save(randomMap(random, width, height, nbPortalPairs), folder));
+            if (gameMap != null) return gameMap;
+        }
+        throw new IllegalStateException("No valid map after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Saves tiles as an XML map file
+     * @param map tiles of the map, by row
+     * @param folder folder to save the map file in
+     * @return the map file
+     */
+    public static File save(char[][] map, File folder) {
+        File mapFile = new File(folder, (nbFiles++) + ".xml");
+        GridModelLoader.saveModel(mapFile, new GridModel(map, TileManager.getInstance().getDefaultChar()));
+        return mapFile;
+    }
+
+    /**
+     * Validates and prepares a map file for a headless game
+     * @param mapFile map file
+     * @return the prepared GameMap, or null if the map isn't valid
+     */
+    public static GameMap load(File mapFile) {
+        GameMapValidator gameMapValidator = new GameMapValidator(mapFile, new EditorErrorCallback(new StringWriter()), true);
+        gameMapValidator.validateMap();
+        return gameMapValidator.prepareGameMap();
+    }
+
+    public static char tile(String tileName) { return TileManager.getInstance().getChar(tileName); }
+
+    private static void place(Random random, char[][] map, String tileName) {
+        map[random.nextInt(map.length)][random.nextInt(map[0].length)] = tile(tileName);
+    }
+}
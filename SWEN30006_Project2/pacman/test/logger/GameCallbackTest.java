@@ -0,0 +1,34 @@
+package logger;
+
+import ch.aplu.jgamegrid.Location;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that GameCallback's reused line buffer writes the same lines as String.format
+ */
+public class GameCallbackTest {
+
+    @Test
+    public void pacManLinesMatchStringFormat() {
+        Random random = new Random(10);
+        StringWriter writer = new StringWriter();
+        GameCallback gameCallback = new GameCallback(writer);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            int x = random.nextInt(200) - 10;
+            int y = random.nextInt(200) - 10;
+            int score = random.nextInt(i % 10 == 0 ? Integer.MAX_VALUE : 1000);
+            int nbPills = random.nextInt(500);
+            gameCallback.pacManLocationChanged(new Location(x, y), score, nbPills);
+            expected.append(String.format("[PacMan] Location: %d-%d. Score: %d. Pills: %d", x, y, score, nbPills))
+                    .append('\n');
+        }
+        gameCallback.close();
+        assertEquals(expected.toString(), writer.toString());
+    }
+}
@@ -0,0 +1,198 @@
+package logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that asynchronous logging writes the same file as logging synchronously
+ */
+public class LogWriterTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    public void asyncLogMatchesSyncLog() throws IOException {
+        Random random = new Random(9);
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 5000; i++) {
+            lines.add(randomLine(random, random.nextInt(50) == 0 ? 100000 : 80));
+        }
+
+        File syncFile = new File(folder, "sync.txt");
+        File asyncFile = new File(folder, "async.txt");
+        LogWriter syncLog = new LogWriter(syncFile.getPath(), false) {};
+        LogWriter asyncLog = new LogWriter(asyncFile.getPath(), true) {};
+        assertFalse(syncLog.isAsync());
+        assertTrue(asyncLog.isAsync());
+        for (int i = 0; i < lines.size(); i++) {
+            syncLog.writeString(lines.get(i));
+
+            // Lines that aren't Strings are copied in as they are
+            if (i % 2 == 0) asyncLog.writeString(lines.get(i));
+            else asyncLog.writeLine(new StringBuilder(lines.get(i)));
+        }
+        syncLog.close();
+        asyncLog.close();
+
+        assertArrayEquals(Files.readAllBytes(syncFile.toPath()), Files.readAllBytes(asyncFile.toPath()));
+    }
+
+    @Test
+    public void flushWaitsForLinesToBeWritten() throws IOException {
+        File file = new File(folder, "flushed.txt");
+        LogWriter log = new LogWriter(file.getPath(), true) {};
+        for (int i = 0; i < 1000; i++) {
+            log.writeString("line " + i);
+        }
+        log.flush();
+        assertEquals(1000, Files.readAllLines(file.toPath()).size());
+
+        log.writeString("last");
+        log.close();
+        assertEquals("last", Files.readAllLines(file.toPath()).get(1000));
+    }
+
+    @Test
+    public void concurrentLinesStayWholeAndInOrder() throws Exception {
+        File file = new File(folder, "concurrent.txt");
+        LogWriter log = new LogWriter(file.getPath(), true) {};
+        int nbThreads = 8;
+        int nbLines = 1000;
+        String padding = "x".repeat(1000);
+        Thread[] threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < nbLines; i++) {
+                    log.writeString(thread + " " + i + " " + padding.substring(0, (i * 37) % padding.length()));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        log.close();
+
+        int[] nextLine = new int[nbThreads];
+        for (String line : Files.readAllLines(file.toPath())) {
+            String[] parts = line.split(" ", -1);
+            int thread = Integer.parseInt(parts[0]);
+            int i = Integer.parseInt(parts[1]);
+            assertEquals(nextLine[thread]++, i);
+            assertEquals(padding.substring(0, (i * 37) % padding.length()), parts[2]);
+        }
+        for (int t = 0; t < nbThreads; t++) {
+            assertEquals(nbLines, nextLine[t]);
+        }
+    }
+
+    @Test
+    public void flushReturnsWhenWritingFails() {
+        WritableByteChannel failingChannel = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer buffer) throws IOException { throw new IOException("Disk full"); }
+
+            @Override
+            public boolean isOpen() { return true; }
+
+            @Override
+            public void close() {}
+        };
+        AsyncLog log = new AsyncLog(failingChannel, StandardCharsets.UTF_8, 16);
+        for (int i = 0; i < 100; i++) {
+            log.add("line " + i);
+        }
+        log.flush();
+        log.close();
+    }
+
+    @Test
+    public void interruptedCallerStillWritesItsLine() throws IOException {
+        File file = new File(folder, "interrupted.txt");
+        LogWriter log = new LogWriter(file.getPath(), true) {};
+        Thread.currentThread().interrupt();
+        log.writeString("first");
+        log.flush();
+        assertTrue(Thread.interrupted());
+
+        log.writeString("second");
+        log.close();
+        assertEquals(List.of("first", "second"), Files.readAllLines(file.toPath()));
+    }
+
+    @Test
+    public void fileWriterWritesInOrderWithLines() throws IOException {
+        File file = new File(folder, "fileWriter.txt");
+        LogWriter log = new LogWriter(file.getPath(), true) {};
+        assertNotNull(log.fileWriter);
+        log.writeString("first");
+        log.fileWriter.write("second\n");
+        log.fileWriter.write("xthird\n".toCharArray(), 1, 6);
+        log.writeString("fourth");
+        log.fileWriter.flush();
+        assertEquals(List.of("first", "second", "third", "fourth"), Files.readAllLines(file.toPath()));
+        log.close();
+    }
+
+    @Test
+    public void batchIsFlushedOnce() {
+        int[] nbFlushes = { 0 };
+        StringWriter writer = new StringWriter() {
+            @Override
+            public void flush() { nbFlushes[0]++; }
+        };
+        LogWriter log = new LogWriter(writer) {};
+        log.writeString("before");
+        assertEquals(1, nbFlushes[0]);
+
+        log.startBatch();
+        for (int i = 0; i < 10; i++) {
+            log.writeString("line " + i);
+        }
+        assertEquals(1, nbFlushes[0]);
+        log.endBatch();
+        assertEquals(2, nbFlushes[0]);
+
+        log.writeString("after");
+        assertEquals(3, nbFlushes[0]);
+        assertEquals(12, writer.toString().split("\n").length);
+    }
+
+    @Test
+    public void linesCanBeKeptInMemory() {
+        StringWriter writer = new StringWriter();
+        LogWriter log = new LogWriter(writer) {};
+        log.writeString("first");
+        log.writeLine(new StringBuilder("second"));
+        log.close();
+        assertEquals("first\nsecond\n", writer.toString());
+    }
+
+    // Includes characters outside the BMP, so surrogate pairs are split across the ring now and then
+    private String randomLine(Random random, int maxLength) {
+        StringBuilder line = new StringBuilder();
+        int length = random.nextInt(maxLength);
+        while (line.length() < length) {
+            int roll = random.nextInt(20);
+            if (roll == 0) line.appendCodePoint(0x1F600 + random.nextInt(50));
+            else if (roll == 1) line.append((char) (0x00C0 + random.nextInt(60)));
+            else line.append((char) ('a' + random.nextInt(26)));
+        }
+        return line.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package matachi.mapeditor.editor;
+
+import gamemap.TestMaps;
+import matachi.mapeditor.grid.Grid;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a compiled map loads the same tiles as the XML map it was compiled from
+ */
+public class CompiledMapLoaderTest {
+
+    @TempDir
+    File folder;
+
+    @Test
+    public void compiledMapMatchesXml() {
+        Random random = new Random(11);
+        for (int i = 0; i < 20; i++) {
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(40);
+            assertRoundTrip(TestMaps.save(TestMaps.randomMap(random, width, height, i % 5), folder));
+        }
+    }
+
+    @Test
+    public void largeCompiledMapMatchesXml() {
+
+        // Large enough to be memory mapped when loaded
+        Random random = new Random(12);
+        assertRoundTrip(TestMaps.save(TestMaps.randomMap(random, 300, 300, 4), folder));
+    }
+
+    @Test
+    public void savedModelLoadsTheSame() throws IOException {
+        Random random = new Random(13);
+        Grid grid = GridModelLoader.createModel(TestMaps.save(TestMaps.randomMap(random, 25, 17, 2), folder));
+        File compiledFile = new File(folder, "saved." + CompiledMapLoader.EXTENSION);
+        CompiledMapLoader.saveModel(compiledFile, grid);
+        assertArrayEquals(grid.getMap(), CompiledMapLoader.createModel(compiledFile).getMap());
+    }
+
+    @Test
+    public void otherFilesAreNotLoaded() throws IOException {
+        File notCompiled = new File(folder, "text." + CompiledMapLoader.EXTENSION);
+        Files.writeString(notCompiled.toPath(), "<level></level>");
+        File tooShort = new File(folder, "short." + CompiledMapLoader.EXTENSION);
+        Files.writeString(tooShort.toPath(), "PM");
+
+        // Not being a compiled map isn't reported as an error
+        PrintStream err = System.err;
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        System.setErr(new PrintStream(errors));
+        try {
+            assertNull(CompiledMapLoader.createModel(notCompiled));
+            assertNull(CompiledMapLoader.createModel(tooShort));
+            assertNull(CompiledMapLoader.createModel(new File(folder, "missing." + CompiledMapLoader.EXTENSION)));
+        } finally {
+            System.setErr(err);
+        }
+        assertEquals("", errors.toString());
+    }
+
+    @Test
+    public void failedWriteIsReported() {
+        File xmlFile = TestMaps.save(TestMaps.randomMap(new Random(14), 5, 5, 0), folder);
+        File unwritable = new File(new File(folder, "missing"), "1." + CompiledMapLoader.EXTENSION);
+        assertThrows(IOException.class,
+                () -> CompiledMapLoader.saveModel(unwritable, GridModelLoader.createModel(xmlFile)));
+
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(new ByteArrayOutputStream()));
+        try {
+            assertFalse(CompiledMapLoader.compile(xmlFile, unwritable));
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    @Test
+    public void compiledMapsAreKnownByExtension() {
+        assertTrue(CompiledMapLoader.isCompiledMap(new File("1." + CompiledMapLoader.EXTENSION)));
+        assertFalse(CompiledMapLoader.isCompiledMap(new File("1.xml")));
+    }
+
+    private void assertRoundTrip(File xmlFile) {
+        String name = xmlFile.getName();
+        File compiledFile = new File(folder, name.substring(0, name.length() - ".xml".length())
+                + "." + CompiledMapLoader.EXTENSION);
+        assertTrue(CompiledMapLoader.compile(xmlFile, compiledFile));
+
+        Grid xmlGrid = GridModelLoader.createModel(xmlFile);
+        Grid compiledGrid = CompiledMapLoader.createModel(compiledFile);
+        assertEquals(xmlGrid.getWidth(), compiledGrid.getWidth());
+        assertEquals(xmlGrid.getHeight(), compiledGrid.getHeight());
+        assertArrayEquals(xmlGrid.getMap(), compiledGrid.getMap());
+    }
+}
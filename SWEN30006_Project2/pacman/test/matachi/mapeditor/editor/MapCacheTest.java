@@ -0,0 +1,122 @@
+package matachi.mapeditor.editor;
+
+import gamemap.TestMaps;
+import matachi.mapeditor.grid.Grid;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks which maps MapCache hands back from the cache and which it parses again. A map file is
+ * changed without changing its length or last modified time to tell the two apart, as the cache can
+ * only notice a change to either of those.
+ */
+public class MapCacheTest {
+    private static final char PILL = TestMaps.tile("PillTile");
+    private static final char GOLD = TestMaps.tile("GoldTile");
+
+    @TempDir
+    File folder;
+
+    @Test
+    public void modelsAreCopies() {
+        MapCache mapCache = new MapCache(4);
+        File mapFile = TestMaps.save(pillMap(), folder);
+
+        Grid grid = mapCache.getModel(mapFile);
+        grid.setTile(0, 0, GOLD);
+        assertEquals(PILL, mapCache.getModel(mapFile).getTile(0, 0));
+
+        mapCache.getModel(mapFile).setTile(0, 0, GOLD);
+        assertEquals(PILL, mapCache.getModel(mapFile).getTile(0, 0));
+    }
+
+    @Test
+    public void cachedMapIsNotParsedAgain() throws IOException {
+        MapCache mapCache = new MapCache(4);
+        File mapFile = TestMaps.save(pillMap(), folder);
+        mapCache.getModel(mapFile);
+
+        changeUnnoticeably(mapFile);
+        assertEquals(PILL, mapCache.getModel(mapFile).getTile(0, 0));
+
+        mapCache.clear();
+        assertEquals(GOLD, mapCache.getModel(mapFile).getTile(0, 0));
+    }
+
+    @Test
+    public void changedFileIsParsedAgain() throws IOException {
+        MapCache mapCache = new MapCache(4);
+        File mapFile = TestMaps.save(pillMap(), folder);
+        mapCache.getModel(mapFile);
+
+        changeUnnoticeably(mapFile);
+        assertTrue(mapFile.setLastModified(mapFile.lastModified() + 2000));
+        assertEquals(GOLD, mapCache.getModel(mapFile).getTile(0, 0));
+    }
+
+    @Test
+    public void leastRecentlyUsedMapIsDropped() throws IOException {
+        MapCache mapCache = new MapCache(2);
+        File first = TestMaps.save(pillMap(), folder);
+        File second = TestMaps.save(pillMap(), folder);
+        File third = TestMaps.save(pillMap(), folder);
+        mapCache.getModel(first);
+        mapCache.getModel(second);
+
+        // Using the first map again leaves the second as the least recently used
+        mapCache.getModel(first);
+        mapCache.getModel(third);
+
+        changeUnnoticeably(first);
+        changeUnnoticeably(second);
+        changeUnnoticeably(third);
+        assertEquals(PILL, mapCache.getModel(first).getTile(0, 0));
+        assertEquals(GOLD, mapCache.getModel(second).getTile(0, 0));
+    }
+
+    @Test
+    public void savedModelIsCached() throws IOException {
+        MapCache mapCache = new MapCache(4);
+        File mapFile = new File(folder, "saved.xml");
+        Grid grid = GridModelLoader.createModel(TestMaps.save(pillMap(), folder));
+        GridModelLoader.saveModel(mapFile, grid);
+        mapCache.putModel(mapFile, grid);
+
+        changeUnnoticeably(mapFile);
+        assertEquals(PILL, mapCache.getModel(mapFile).getTile(0, 0));
+    }
+
+    @Test
+    public void compiledMapsAreCached() throws IOException {
+        MapCache mapCache = new MapCache(4);
+        File compiledFile = new File(folder, "1." + CompiledMapLoader.EXTENSION);
+        assertTrue(CompiledMapLoader.compile(TestMaps.save(pillMap(), folder), compiledFile));
+
+        Grid grid = mapCache.getModel(compiledFile);
+        assertEquals(PILL, grid.getTile(0, 0));
+        assertArrayEquals(grid.getMap(), mapCache.getModel(compiledFile).getMap());
+    }
+
+    private char[][] pillMap() {
+        char[][] map = TestMaps.randomMap(new Random(13), 6, 5, 0);
+        map[0][0] = PILL;
+        return map;
+    }
+
+    // Swaps the first pill for a gold, which has a name of the same length
+    private void changeUnnoticeably(File mapFile) throws IOException {
+        long lastModified = mapFile.lastModified();
+        String contents = Files.readString(mapFile.toPath());
+        String changed = contents.replaceFirst("(?i)PillTile", "GoldTile");
+        assertEquals(contents.length(), changed.length());
+        Files.writeString(mapFile.toPath(), changed);
+        assertTrue(mapFile.setLastModified(lastModified));
+    }
+}
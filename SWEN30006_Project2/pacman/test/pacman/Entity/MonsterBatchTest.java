@@ -0,0 +1,98 @@
+package pacman.Entity;
+
+import gamemap.GameMap;
+import gamemap.TestMaps;
+import logger.GameCallback;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pacman.Game;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that planning a large batch of monsters' moves in parallel plays the same game as planning
+ * them one at a time
+ */
+public class MonsterBatchTest {
+    private static final int NB_MONSTERS_PER_TYPE = 2 * MonsterBatch.DEFAULT_PARALLEL_THRESHOLD;
+    private static final int MIN_DISTANCE_FROM_PACMAN = 20;
+
+    @TempDir
+    File folder;
+
+    @Test
+    public void parallelPlanningPlaysTheSameGame() {
+        Random random = new Random(24);
+        for (int i = 0; i < 3; i++) {
+            File mapFile = crowdedMapFile(random);
+            String parallelLog = playGame(mapFile, MonsterBatch.DEFAULT_PARALLEL_THRESHOLD);
+            String serialLog = playGame(mapFile, Integer.MAX_VALUE);
+
+            // The game has to last long enough for the monsters to move a few times
+            assertTrue(parallelLog.lines().count() > 4 * NB_MONSTERS_PER_TYPE, "Only " + parallelLog.lines().count() + " lines");
+            assertEquals(serialLog, parallelLog);
+
+            // Playing again gives the same game
+            assertEquals(parallelLog, playGame(mapFile, MonsterBatch.DEFAULT_PARALLEL_THRESHOLD));
+        }
+    }
+
+    private String playGame(File mapFile, int parallelThreshold) {
+        Properties properties = new Properties();
+        properties.setProperty("seed", "30006");
+        properties.setProperty("PacMan.isAuto", "true");
+        properties.setProperty("Game.isHeadless", "true");
+        properties.setProperty("MonsterBatch.parallelThreshold", String.valueOf(parallelThreshold));
+
+        GameMap gameMap = TestMaps.load(mapFile);
+        StringWriter gameLog = new StringWriter();
+        GameCallback gameCallback = new GameCallback(gameLog);
+        Game game = new Game(gameCallback, properties, gameMap);
+        game.run();
+        game.close();
+        gameCallback.close();
+        return gameLog.toString();
+    }
+
+    // A valid map with a large batch of each type of monster
+    private File crowdedMapFile(Random random) {
+        while (true) {
+            char[][] map = TestMaps.randomMap(random, 60, 40, 1);
+            place(random, map, "TrollTile");
+            place(random, map, "Tx5Tile");
+            File mapFile = TestMaps.save(map, folder);
+            if (TestMaps.load(mapFile) != null) return mapFile;
+        }
+    }
+
+    // Monsters only go on empty paths, so no items or portals are lost, and start away from PacMan,
+    // so the game lasts a while
+    private void place(Random random, char[][] map, String tileName) {
+        char pathTile = TestMaps.tile("PathTile");
+        char pacTile = TestMaps.tile("PacTile");
+        int pacX = 0;
+        int pacY = 0;
+        for (int y = 0; y < map.length; y++) {
+            for (int x = 0; x < map[y].length; x++) {
+                if (map[y][x] == pacTile) {
+                    pacX = x;
+                    pacY = y;
+                }
+            }
+        }
+
+        for (int i = 0; i < NB_MONSTERS_PER_TYPE; ) {
+            int x = random.nextInt(map[0].length);
+            int y = random.nextInt(map.length);
+            if (map[y][x] == pathTile && Math.abs(x - pacX) + Math.abs(y - pacY) > MIN_DISTANCE_FROM_PACMAN) {
+                map[y][x] = TestMaps.tile(tileName);
+                i++;
+            }
+        }
+    }
+}
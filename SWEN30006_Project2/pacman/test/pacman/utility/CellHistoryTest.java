@@ -0,0 +1,78 @@
+package pacman.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks CellHistory against a queue of the last cells added
+ */
+public class CellHistoryTest {
+
+    @Test
+    public void containsTheLastCellsAdded() {
+        Random random = new Random(21);
+        for (int capacity : new int[] { 0, 1, 2, 3, 5, 16, 100 }) {
+
+            // Few enough cells that the same cell is often in the history more than once
+            int nbCells = 2 * capacity + 3;
+            CellHistory history = new CellHistory(capacity);
+            ArrayDeque<Integer> lastCells = new ArrayDeque<Integer>();
+            for (int i = 0; i < 2000; i++) {
+                int cell = random.nextInt(10) == 0 ? CellHistory.NO_CELL : random.nextInt(nbCells);
+                history.add(cell);
+                if (capacity > 0) {
+                    if (lastCells.size() == capacity) lastCells.removeFirst();
+                    lastCells.addLast(cell);
+                }
+
+                assertEquals(lastCells.size(), history.size());
+                for (int other = 0; other < nbCells; other++) {
+                    assertEquals(lastCells.contains(other), history.contains(other),
+                            "Cell " + other + " with capacity " + capacity + " after " + (i + 1) + " cells");
+                }
+                assertFalse(history.contains(CellHistory.NO_CELL));
+            }
+        }
+    }
+
+    @Test
+    public void clearForgetsEveryCell() {
+        CellHistory history = new CellHistory(4);
+        for (int cell = 0; cell < 6; cell++) {
+            history.add(cell);
+        }
+        history.clear();
+        assertEquals(0, history.size());
+        for (int cell = 0; cell < 6; cell++) {
+            assertFalse(history.contains(cell));
+        }
+
+        history.add(7);
+        assertTrue(history.contains(7));
+        assertEquals(1, history.size());
+    }
+
+    @Test
+    public void largeCellIndicesAreRemembered() {
+        CellHistory history = new CellHistory(3);
+        history.add(Integer.MAX_VALUE);
+        history.add(1 << 20);
+        history.add(0);
+        assertTrue(history.contains(Integer.MAX_VALUE));
+        assertTrue(history.contains(1 << 20));
+
+        history.add(5);
+        assertFalse(history.contains(Integer.MAX_VALUE));
+        assertTrue(history.contains(1 << 20));
+    }
+
+    @Test
+    public void capacityCantBeNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new CellHistory(-1));
+        assertEquals(0, new CellHistory(0).getCapacity());
+    }
+}
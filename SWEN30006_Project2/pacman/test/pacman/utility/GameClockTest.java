@@ -0,0 +1,98 @@
+package pacman.utility;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks GameClock's logical time and how its speed is used
+ */
+public class GameClockTest {
+
+    @Test
+    public void clockTimeOnlyDependsOnTicks() {
+        GameClock slowClock = new GameClock(0.5);
+        GameClock fastClock = new GameClock(GameClock.AS_FAST_AS_POSSIBLE);
+        for (int i = 0; i < 30; i++) {
+            fastClock.pace();
+            fastClock.advance();
+            slowClock.advance();
+        }
+        assertEquals(30, fastClock.getTick());
+        assertEquals(slowClock.getTime(), fastClock.getTime());
+        assertEquals(30L * GameClock.TICK_MILLIS, fastClock.getTime());
+        assertEquals(20, fastClock.secondsToTicks(2));
+        assertEquals(3, fastClock.millisToTicks(399));
+    }
+
+    @Test
+    public void speedSetsTheSimulationPeriod() {
+        assertEquals(GameClock.TICK_MILLIS, new GameClock(1).getSimulationPeriod());
+        assertEquals(GameClock.TICK_MILLIS / 4, new GameClock(4).getSimulationPeriod());
+        assertEquals(1, new GameClock(GameClock.AS_FAST_AS_POSSIBLE).getSimulationPeriod());
+        assertThrows(IllegalArgumentException.class, () -> new GameClock(0));
+    }
+
+    @Test
+    public void speedsAreParsedFromProperties() {
+        assertEquals(1, GameClock.parseSpeed(null, 1));
+        assertEquals(2, GameClock.parseSpeed(" ", 2));
+        assertEquals(0.5, GameClock.parseSpeed("0.5", 1));
+        assertEquals(GameClock.AS_FAST_AS_POSSIBLE, GameClock.parseSpeed(" MAX ", 1));
+    }
+
+    @Test
+    public void awaitTicksWaitsForTheClock() throws InterruptedException {
+        GameClock clock = new GameClock(GameClock.AS_FAST_AS_POSSIBLE);
+        int[] tickWhenDone = { -1 };
+        Thread waiter = new Thread(() -> {
+            try {
+                clock.awaitTicks(3, () -> false);
+                synchronized (tickWhenDone) {
+                    tickWhenDone[0] = clock.getTick();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // Only advanced once the waiter is waiting, so its task is already scheduled
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        clock.advance();
+        clock.advance();
+        synchronized (tickWhenDone) {
+            assertEquals(-1, tickWhenDone[0]);
+        }
+        clock.advance();
+        waiter.join(5000);
+        assertEquals(3, tickWhenDone[0]);
+    }
+
+    @Test
+    public void awaitTicksStopsWaitingWhenPaused() throws InterruptedException {
+        GameClock clock = new GameClock(1);
+        boolean[] isPaused = { false };
+        Thread waiter = new Thread(() -> {
+            try {
+                clock.awaitTicks(3, () -> {
+                    synchronized (isPaused) {
+                        return isPaused[0];
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        clock.advance();
+        synchronized (isPaused) {
+            isPaused[0] = true;
+        }
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+        assertEquals(1, clock.getTick());
+    }
+}
@@ -0,0 +1,64 @@
+package pacman.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks when TickScheduler runs its tasks
+ */
+public class TickSchedulerTest {
+
+    @Test
+    public void tasksRunOnTheirTick() {
+        TickScheduler scheduler = new TickScheduler();
+        List<String> ran = new ArrayList<String>();
+        scheduler.schedule(3, () -> ran.add("c@" + scheduler.getTick()));
+        scheduler.schedule(1, () -> ran.add("a@" + scheduler.getTick()));
+        scheduler.schedule(2, () -> ran.add("b@" + scheduler.getTick()));
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.advance();
+        }
+        assertEquals(List.of("a@1", "b@2", "c@3"), ran);
+        assertEquals(5, scheduler.getTick());
+    }
+
+    @Test
+    public void tasksDueTogetherRunInTheOrderScheduled() {
+        TickScheduler scheduler = new TickScheduler();
+        List<Integer> ran = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++) {
+            int task = i;
+            scheduler.schedule(2, () -> ran.add(task));
+        }
+
+        scheduler.advance();
+        assertTrue(ran.isEmpty());
+        scheduler.advance();
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, ran.get(i));
+        }
+    }
+
+    @Test
+    public void tasksCanScheduleMoreTasks() {
+        TickScheduler scheduler = new TickScheduler();
+        List<String> ran = new ArrayList<String>();
+        scheduler.schedule(1, () -> {
+            ran.add("first@" + scheduler.getTick());
+            scheduler.schedule(0, () -> ran.add("now@" + scheduler.getTick()));
+            scheduler.schedule(2, () -> ran.add("later@" + scheduler.getTick()));
+        });
+
+        for (int i = 0; i < 4; i++) {
+            scheduler.advance();
+        }
+
+        // A task due straight away waits for the next tick, as the due tasks were already taken
+        assertEquals(List.of("first@1", "now@2", "later@3"), ran);
+    }
+}
@@ -0,0 +1,101 @@
+package pathfinder;
+
+import gamemap.GameMap;
+import gamemap.TestMaps;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks NextHopIndex against GridSearch, which it must always agree with
+ */
+public class NextHopIndexTest {
+    private static final int[] NO_AVOIDED = new int[0];
+
+    @TempDir
+    File folder;
+
+    @Test
+    public void findNextMatchesGridSearch() {
+        Random random = new Random(4);
+        for (int i = 0; i < 10; i++) {
+            GameMap gameMap = TestMaps.randomGameMap(random, folder, 12, 9, i % 5);
+            GridSearch gridSearch = new GridSearch(gameMap);
+            NextHopIndex index = NextHopIndex.create(gridSearch, Long.MAX_VALUE);
+            assertTrue(index.precompute());
+
+            int nbCells = gridSearch.getNbCells();
+            for (int start = 0; start < nbCells; start++) {
+                if (!gameMap.isWalkable(start)) continue;
+                for (int end = 0; end < nbCells; end++) {
+                    if (!gameMap.isWalkable(end)) continue;
+                    assertEquals(gridSearch.findNext(start, end, NO_AVOIDED, 0), index.findNext(start, end),
+                            "From " + gridSearch.toLocation(start) + " to " + gridSearch.toLocation(end));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void distanceIsTheNumberOfMovesToTheEnd() {
+        Random random = new Random(5);
+        for (int i = 0; i < 10; i++) {
+
+            // Without portals, as a walk would have to follow each portal to its pair
+            GameMap gameMap = TestMaps.randomGameMap(random, folder, 12, 9, 0);
+            GridSearch gridSearch = new GridSearch(gameMap);
+            NextHopIndex index = NextHopIndex.create(gridSearch, Long.MAX_VALUE);
+
+            int nbCells = gridSearch.getNbCells();
+            for (int start = 0; start < nbCells; start++) {
+                if (!gameMap.isWalkable(start)) continue;
+                for (int end = 0; end < nbCells; end++) {
+                    if (!gameMap.isWalkable(end) || end == start) continue;
+                    int distance = index.getDistance(start, end);
+                    if (distance < 0) {
+                        assertEquals(start, index.findNext(start, end));
+                        continue;
+                    }
+
+                    int nbMoves = 0;
+                    for (int cell = start; cell != end; cell = index.findNext(cell, end)) {
+                        nbMoves++;
+                        assertTrue(nbMoves <= nbCells, "Path doesn't reach the end");
+                    }
+                    assertEquals(distance, nbMoves);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void reusedRowsGiveTheSameAnswers() {
+        Random random = new Random(6);
+        GameMap gameMap = TestMaps.randomGameMap(random, folder, 20, 15, 2);
+        GridSearch gridSearch = new GridSearch(gameMap);
+        int nbCells = gridSearch.getNbCells();
+
+        // Room for three rows, so most queries reuse the oldest row
+        NextHopIndex index = NextHopIndex.create(gridSearch, 3L * nbCells * Character.BYTES);
+        assertFalse(index.precompute());
+        for (int i = 0; i < 5000; i++) {
+            int start = random.nextInt(nbCells);
+            int end = random.nextInt(nbCells);
+            if (!gameMap.isWalkable(start) || !gameMap.isWalkable(end)) continue;
+            assertEquals(gridSearch.findNext(start, end, NO_AVOIDED, 0), index.findNext(start, end));
+        }
+    }
+
+    @Test
+    public void noIndexWithoutRoomForARow() {
+        Random random = new Random(7);
+        GridSearch gridSearch = new GridSearch(TestMaps.randomGameMap(random, folder, 10, 10, 0));
+        assertNull(NextHopIndex.create(gridSearch, 0));
+        assertNull(NextHopIndex.create(gridSearch, 100L * Character.BYTES - 1));
+        assertNotNull(NextHopIndex.create(gridSearch, 100L * Character.BYTES));
+    }
+}